@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "io.mailtrap.testtask"
@@ -42,8 +43,21 @@ dependencies {
     testImplementation("org.mockito:mockito-core:5.11.0")
     testCompileOnly("org.projectlombok:lombok:1.18.32")
     testAnnotationProcessor("org.projectlombok:lombok:1.18.32")
+
+    jmh("org.wiremock:wiremock:3.5.4")
+    jmhCompileOnly("org.projectlombok:lombok:1.18.32")
+    jmhAnnotationProcessor("org.projectlombok:lombok:1.18.32")
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+}
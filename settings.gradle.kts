@@ -1,2 +1,3 @@
 rootProject.name = "railsware-mailtrap-test-task"
 
+include("test-support")
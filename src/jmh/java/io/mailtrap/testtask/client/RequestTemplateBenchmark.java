@@ -0,0 +1,63 @@
+package io.mailtrap.testtask.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.util.concurrent.TimeUnit;
+
+import static io.mailtrap.testtask.Constants.BATCH_ENDPOINT;
+import static io.mailtrap.testtask.Constants.SANDBOX_URL;
+import static io.mailtrap.testtask.Constants.SEND_ENDPOINT;
+
+/**
+ * Per-send cost of preparing the request URI and headers: rebuilding them on every send
+ * versus copying them from a cached {@link RequestTemplate}. The body is left out to measure the setup path only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestTemplateBenchmark {
+
+    private final String token = "0123456789abcdef0123456789abcdef";
+    private final int inboxId = 12345;
+    private RequestTemplate template;
+
+    @Setup
+    public void setUp() throws URISyntaxException {
+        template = new RequestTemplate(true, null, new URI(SANDBOX_URL + SEND_ENDPOINT + "/" + inboxId),
+                new URI(SANDBOX_URL + BATCH_ENDPOINT + "/" + inboxId), token);
+    }
+
+    @Benchmark
+    public HttpRequest rebuildPerSend() throws URISyntaxException {
+        return HttpRequest.newBuilder()
+                .uri(new URI(SANDBOX_URL + SEND_ENDPOINT + "/" + inboxId))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json; charset=UTF-8")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    @Benchmark
+    public HttpRequest cachedTemplate() {
+        return template.newSendRequest()
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+}
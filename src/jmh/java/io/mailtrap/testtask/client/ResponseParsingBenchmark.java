@@ -0,0 +1,57 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.response.CommonResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link SendMailMailtrapClient#handleResponse} parsing success and failure responses in each {@link ResponseMode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    private final byte[] success = "{\"success\":true,\"message_ids\":[\"0c7fd939-02cf-11ed-88c2-0a58a9feac02\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+    private final byte[] failure = "{\"success\":false,\"errors\":[\"'to' address is required\",\"'subject' is required\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"BIND", "STREAMING", "STATUS_ONLY"})
+    private ResponseMode mode;
+
+    private SendMailMailtrapClient client;
+
+    @Setup
+    public void setUp() {
+        client = new SendMailMailtrapClient("token", 1);
+        client.setResponseMode(mode);
+    }
+
+    @Benchmark
+    public CommonResponse success() {
+        return client.handleResponse(200, new ByteArrayInputStream(success));
+    }
+
+    @Benchmark
+    public CommonResponse failure() {
+        return client.handleResponse(400, new ByteArrayInputStream(failure));
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.mailtrap.testtask.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.request.SerializationBenchmark.BenchmarkMails;
+import io.mailtrap.testtask.response.CommonResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * End-to-end cost of {@link SendMailMailtrapClient#send(CommonMail)} - validation, serialization, HTTP exchange
+ * over loopback and response parsing - against an in-process WireMock stub of the send endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class SendBenchmark {
+
+    /**
+     * Size of the raw attachment in bytes, 0 for a mail without attachments
+     */
+    @Param({"0", "65536"})
+    public int attachmentSize;
+
+    private WireMockServer server;
+    private SendMailMailtrapClient client;
+    private CommonMail mail;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new WireMockServer(wireMockConfig().dynamicPort().containerThreads(32));
+        server.start();
+        server.stubFor(post(urlPathMatching("/api/send/.*"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"success\":true,\"message_ids\":[\"0c7fd939-02cf-11ed-88c2-0a58a9feac02\"]}")));
+
+        client = new SendMailMailtrapClient("token", 1);
+        client.setBaseUrl(server.baseUrl());
+        mail = BenchmarkMails.create(attachmentSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public CommonResponse send() {
+        return client.send(mail);
+    }
+
+}
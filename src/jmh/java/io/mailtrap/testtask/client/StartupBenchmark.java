@@ -0,0 +1,97 @@
+package io.mailtrap.testtask.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.validation.MailValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first send in a fresh JVM - class loading and initialization of the client, the serializer,
+ * the validator and the HTTP client, plus one exchange over loopback. Every fork measures a single send.
+ * <p>
+ * The stub is a JDK {@link HttpServer} rather than WireMock, which would initialize Jackson before the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    private static final byte[] RESPONSE = "{\"success\":true,\"message_ids\":[\"0c7fd939-02cf-11ed-88c2-0a58a9feac02\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Validator of the client, {@code fast} or {@code jakarta}
+     */
+    @Param({"fast", "jakarta"})
+    public String validator;
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(RESPONSE);
+            }
+        });
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public CommonResponse firstSend() {
+        var client = new SendMailMailtrapClient("token", 1);
+        client.setBaseUrl(baseUrl);
+        if ("jakarta".equals(validator)) {
+            client.setMailValidator(MailValidator.jakarta());
+        }
+
+        var from = new Address();
+        from.setEmail("sender@example.com");
+        var to = new Address();
+        to.setEmail("recipient@example.com");
+        var mail = new CommonMail();
+        mail.setFrom(from);
+        mail.setTo(List.of(to));
+        mail.setSubject("Sample subject");
+        mail.setText("Sample mail text");
+
+        return client.send(mail);
+    }
+
+}
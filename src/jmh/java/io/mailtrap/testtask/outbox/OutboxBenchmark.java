@@ -0,0 +1,103 @@
+package io.mailtrap.testtask.outbox;
+
+import io.mailtrap.testtask.client.MailtrapClient;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latency of appending a mail to the outbox, without waiting for the fsync ({@code enqueue})
+ * and waiting for the group commit ({@code enqueueDurable}). Mails are sent to a client responding right away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class OutboxBenchmark {
+
+    private Path directory;
+    private Outbox outbox;
+    private CommonMail mail;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-benchmark");
+        outbox = Outbox.open(directory, new ImmediateClient());
+
+        var from = new Address();
+        from.setEmail("sender@example.com");
+        var to = new Address();
+        to.setEmail("recipient@example.com");
+
+        mail = new CommonMail();
+        mail.setFrom(from);
+        mail.setTo(List.of(to));
+        mail.setSubject("Sample subject");
+        mail.setText("Sample mail text");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        outbox.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public CompletableFuture<Long> enqueue() {
+        return outbox.enqueue(mail);
+    }
+
+    @Benchmark
+    public Long enqueueDurable() {
+        return outbox.enqueue(mail).join();
+    }
+
+    private static class ImmediateClient implements MailtrapClient {
+        private static final SuccessResponse RESPONSE = new SuccessResponse();
+
+        @Override
+        public CommonResponse send(CommonMail mail) {
+            return RESPONSE;
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+            return CompletableFuture.completedFuture(RESPONSE);
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+            return CompletableFuture.completedFuture(RESPONSE);
+        }
+    }
+
+}
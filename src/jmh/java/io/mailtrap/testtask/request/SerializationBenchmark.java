@@ -0,0 +1,96 @@
+package io.mailtrap.testtask.request;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link AbstractModel#toJson()} for a small mail and for mails with large base64 attachments,
+ * compared to rendering the same mail from a {@link MailTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /**
+     * Size of the raw attachment in bytes, 0 for a mail without attachments
+     */
+    @Param({"0", "65536", "2097152"})
+    public int attachmentSize;
+
+    private CommonMail mail;
+    private MailTemplate template;
+    private Map<String, String> variables;
+
+    @Setup
+    public void setUp() {
+        mail = BenchmarkMails.create(attachmentSize);
+        template = MailTemplate.of(mail);
+        variables = Map.of();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return mail.toJson();
+    }
+
+    @Benchmark
+    public List<byte[]> renderTemplate() {
+        return template.render(mail.getTo(), variables);
+    }
+
+    /**
+     * Test mails shared by the benchmarks.
+     */
+    public static final class BenchmarkMails {
+
+        private BenchmarkMails() {
+        }
+
+        public static CommonMail create(int attachmentSize) {
+            var from = new Address();
+            from.setEmail("sender@example.com");
+            from.setName("Sender");
+            var to = new Address();
+            to.setEmail("recipient@example.com");
+
+            var mail = new CommonMail();
+            mail.setFrom(from);
+            mail.setTo(List.of(to));
+            mail.setSubject("Your invoice");
+            mail.setText("Please find your invoice attached.");
+            mail.setHtml("<html><body><p>Please find your <b>invoice</b> attached.</p></body></html>");
+
+            if (attachmentSize > 0) {
+                byte[] raw = new byte[attachmentSize];
+                new Random(42).nextBytes(raw);
+
+                var attachment = new Attachment();
+                attachment.setFilename("invoice.pdf");
+                attachment.setType("application/pdf");
+                attachment.setContent(Base64.getEncoder().encodeToString(raw));
+                mail.setAttachments(List.of(attachment));
+            }
+            return mail;
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.mailtrap.testtask.validation;
+
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating a valid mail with the fast validator versus the generic Jakarta one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final MailValidator fast = MailValidator.fast();
+    private MailValidator jakarta;
+    private CommonMail mail;
+
+    @Setup
+    public void setUp() {
+        jakarta = MailValidator.jakarta();
+
+        var from = new Address();
+        from.setEmail("sender@example.com");
+        var to = new Address();
+        to.setEmail("recipient@example.com");
+        var cc = new Address();
+        cc.setEmail("first.last+tag@sub.example.co.uk");
+
+        var attachment = new Attachment();
+        attachment.setFilename("attachment.txt");
+        attachment.setType("text/plain");
+        attachment.setContent("c2FtcGxlIHRleHQgaW4gdGV4dCBmaWxl");
+
+        mail = new CommonMail();
+        mail.setFrom(from);
+        mail.setTo(List.of(to, cc));
+        mail.setSubject("Sample subject");
+        mail.setText("Sample mail text");
+        mail.setAttachments(List.of(attachment));
+    }
+
+    @Benchmark
+    public String fast() {
+        return fast.validate(mail);
+    }
+
+    @Benchmark
+    public String jakarta() {
+        return jakarta.validate(mail);
+    }
+
+}
@@ -7,5 +7,7 @@ public final class Constants {
     public static final String SANDBOX_URL = "https://sandbox.api.mailtrap.io";
     public static final String PRODUCTION_URL = "https://send.api.mailtrap.io";
     public static final String SEND_ENDPOINT = "/api/send";
+    public static final String BATCH_ENDPOINT = "/api/batch";
+    public static final int BATCH_MAX_REQUESTS = 500;
 
 }
\ No newline at end of file
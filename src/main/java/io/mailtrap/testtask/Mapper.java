@@ -5,16 +5,39 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.mailtrap.testtask.serialization.ModelModule;
 
 public class Mapper {
-    private static final ObjectMapper mapper = JsonMapper.builder()
-            .disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS)
-            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-            .serializationInclusion(JsonInclude.Include.NON_NULL)
-            .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+    private static final ObjectMapper mapper = databindBuilder()
+            .addModule(new ModelModule())
             .build();
 
     public static ObjectMapper get() {
         return mapper;
     }
+
+    /**
+     * @return mapper binding the models by bean introspection, without the hand-written serializers of {@link ModelModule}
+     */
+    public static ObjectMapper databind() {
+        return DatabindHolder.MAPPER;
+    }
+
+    /**
+     * @return builder of the mapper configuration without the hand-written serializers of {@link ModelModule}
+     */
+    static JsonMapper.Builder databindBuilder() {
+        return JsonMapper.builder()
+                .disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .serializationInclusion(JsonInclude.Include.NON_EMPTY);
+    }
+
+    /**
+     * Built on the first use, most applications never bind by databind
+     */
+    private static final class DatabindHolder {
+        private static final ObjectMapper MAPPER = databindBuilder().build();
+    }
 }
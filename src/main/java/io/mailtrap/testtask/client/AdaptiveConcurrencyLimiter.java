@@ -0,0 +1,173 @@
+package io.mailtrap.testtask.client;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests in flight to Mailtrap API, adapting the limit to the observed latency,
+ * shared by all threads using one client.
+ * <p>
+ * The limit follows the additive-increase/multiplicative-decrease scheme of TCP congestion control. The lowest latency
+ * seen recently is the latency of an unloaded API. While requests complete within {@code tolerance} times of it and
+ * the limit is actually used, the limit grows by one per limit's worth of requests. When a request is slower,
+ * fails or times out, the API is queueing: the limit is cut by {@code backoffRatio}, at most once per round trip,
+ * so requests above the limit are rejected right away instead of piling up behind the slow ones.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double TOLERANCE = 2;
+
+    /**
+     * Number of samples after which the lowest latency is measured anew, so the baseline follows lasting changes
+     */
+    private static final int MIN_RTT_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+    private long lastDecreaseNanos;
+
+    /**
+     * Constructs a limiter starting at 20 concurrent requests, adapting between 1 and 200.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(20, 1, 200);
+    }
+
+    /**
+     * Constructs a new limiter.
+     *
+     * @param initialLimit initial number of concurrent requests
+     * @param minLimit     lowest number of concurrent requests the limit is decreased to
+     * @param maxLimit     highest number of concurrent requests the limit is increased to
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a slot for one request. Every taken slot has to be returned by either {@link #onSuccess(long)},
+     * {@link #onDropped()} or {@link #onIgnored()}.
+     *
+     * @return true if the request may be sent, false if the limit is reached and the request has to be rejected
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slot of a request which has been answered, adapting the limit to its latency.
+     *
+     * @param rttNanos time from sending the request until the response headers have been received
+     */
+    public void onSuccess(long rttNanos) {
+        onSuccess(System.nanoTime(), rttNanos);
+    }
+
+    void onSuccess(long now, long rttNanos) {
+        lock.lock();
+        try {
+            int used = inFlight--;
+            if (++samples >= MIN_RTT_SAMPLES) {
+                samples = 0;
+                minRttNanos = rttNanos;
+            } else {
+                minRttNanos = Math.min(minRttNanos, rttNanos);
+            }
+
+            if (rttNanos > minRttNanos * TOLERANCE) {
+                decrease(now, rttNanos);
+            } else if (used * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slot of a request which has failed or timed out, decreasing the limit.
+     */
+    public void onDropped() {
+        onDropped(System.nanoTime());
+    }
+
+    void onDropped(long now) {
+        lock.lock();
+        try {
+            inFlight--;
+            decrease(now, minRttNanos == Long.MAX_VALUE ? 0 : minRttNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slot of a request which has not been completed, e.g. because the sending thread was interrupted.
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            inFlight--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current number of requests allowed to be in flight
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cuts the limit, unless it has been cut within the last round trip: the requests completing during it
+     * were sent under the previous limit and do not tell anything about the new one
+     */
+    private void decrease(long now, long rttNanos) {
+        if (now - lastDecreaseNanos < rttNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+}
@@ -0,0 +1,177 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Sends large amounts of emails through {@link MailtrapClient#sendAsync(CommonMail, Executor)}
+ * keeping at most {@code maxInFlight} requests in flight at any time.
+ * <p>
+ * The source of mails is pulled lazily - the next mail is taken only when there is a free slot,
+ * so neither the source nor the results are ever fully buffered in memory.
+ * Results are passed to the callback on the calling thread, one at a time, so the callback does not need to be thread-safe.
+ */
+public class BulkSender {
+
+    private final MailtrapClient client;
+    private final int maxInFlight;
+    private final Executor executor;
+
+    /**
+     * Constructs a new bulk sender using the default executor of the client for validation, serialization and parsing,
+     * see {@link MailtrapClient#sendAsync(CommonMail)}.
+     *
+     * @param client      client used to send each email
+     * @param maxInFlight maximum number of requests in flight
+     */
+    public BulkSender(MailtrapClient client, int maxInFlight) {
+        this(client, maxInFlight, null);
+    }
+
+    /**
+     * Constructs a new bulk sender.
+     *
+     * @param client      client used to send each email
+     * @param maxInFlight maximum number of requests in flight
+     * @param executor    executor passed to {@link MailtrapClient#sendAsync(CommonMail, Executor)},
+     *                    {@code null} to use the default executor of the client
+     */
+    public BulkSender(MailtrapClient client, int maxInFlight, Executor executor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.client = Objects.requireNonNull(client, "client");
+        this.maxInFlight = maxInFlight;
+        this.executor = executor;
+    }
+
+    /**
+     * Sends all emails, passing results to the callback in the order the sends complete.
+     * Blocks until every result has been passed to the callback.
+     *
+     * @param mails    emails to be sent
+     * @param callback consumer of per-message results
+     * @throws BaseMailtrapException if the calling thread is interrupted while waiting for results
+     */
+    public void send(Iterable<CommonMail> mails, Consumer<SendResult> callback) {
+        run(mails.iterator(), callback, false);
+    }
+
+    /**
+     * Same as {@link #send(Iterable, Consumer)}, but takes emails from a stream.
+     */
+    public void send(Stream<CommonMail> mails, Consumer<SendResult> callback) {
+        run(mails.iterator(), callback, false);
+    }
+
+    /**
+     * Sends all emails, passing results to the callback in the order of the source.
+     * A slow send delays passing the results after it, and no more than {@code maxInFlight} results are held at once,
+     * so it also delays taking new mails from the source.
+     * Blocks until every result has been passed to the callback.
+     *
+     * @param mails    emails to be sent
+     * @param callback consumer of per-message results
+     * @throws BaseMailtrapException if the calling thread is interrupted while waiting for results
+     */
+    public void sendOrdered(Iterable<CommonMail> mails, Consumer<SendResult> callback) {
+        run(mails.iterator(), callback, true);
+    }
+
+    /**
+     * Same as {@link #sendOrdered(Iterable, Consumer)}, but takes emails from a stream.
+     */
+    public void sendOrdered(Stream<CommonMail> mails, Consumer<SendResult> callback) {
+        run(mails.iterator(), callback, true);
+    }
+
+    private void run(Iterator<CommonMail> mails, Consumer<SendResult> callback, boolean ordered) {
+        // Each in-flight send adds exactly one element, so the queue never holds more than maxInFlight results
+        BlockingQueue<SendResult> completed = new LinkedBlockingQueue<>();
+        Delivery delivery = ordered ? new OrderedDelivery(callback, maxInFlight) : new Delivery(callback);
+        long index = 0;
+
+        try {
+            while (mails.hasNext()) {
+                while (delivery.pending >= maxInFlight) {
+                    delivery.accept(completed.take());
+                }
+
+                SendResult result;
+                while ((result = completed.poll()) != null) {
+                    delivery.accept(result);
+                }
+
+                CommonMail mail = mails.next();
+                long mailIndex = index++;
+                delivery.pending++;
+                (executor == null ? client.sendAsync(mail) : client.sendAsync(mail, executor))
+                        .whenComplete((response, error) -> completed.add(SendResult.of(mailIndex, mail, response, error)));
+            }
+
+            while (delivery.pending > 0) {
+                delivery.accept(completed.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BaseMailtrapException("Interrupted while waiting for bulk send results", e);
+        }
+    }
+
+    /**
+     * Passes results to the callback as soon as they arrive.
+     */
+    private static class Delivery {
+        final Consumer<SendResult> callback;
+
+        /**
+         * Number of mails taken from the source which results have not been passed to the callback yet
+         */
+        int pending;
+
+        Delivery(Consumer<SendResult> callback) {
+            this.callback = callback;
+        }
+
+        void accept(SendResult result) {
+            pending--;
+            callback.accept(result);
+        }
+    }
+
+    /**
+     * Holds results that arrived ahead of their turn in a ring buffer and passes them to the callback in source order.
+     * The window of undelivered indexes is never wider than the buffer, so slots never collide.
+     */
+    private static class OrderedDelivery extends Delivery {
+        private final SendResult[] window;
+        private long next;
+
+        OrderedDelivery(Consumer<SendResult> callback, int size) {
+            super(callback);
+            this.window = new SendResult[size];
+        }
+
+        @Override
+        void accept(SendResult result) {
+            window[(int) (result.getIndex() % window.length)] = result;
+
+            int slot;
+            while (window[slot = (int) (next % window.length)] != null) {
+                SendResult head = window[slot];
+                window[slot] = null;
+                next++;
+                super.accept(head);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package io.mailtrap.testtask.client;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker rejecting requests to Mailtrap API while it is failing or responding slowly,
+ * shared by all threads using one client.
+ * <p>
+ * The breaker is {@link State#CLOSED closed} while the failure and slow-call rates of the last
+ * {@link CircuitBreakerConfig#getWindowSize() windowSize} requests are below their thresholds. Once a threshold is reached
+ * it {@link State#OPEN opens}, and requests fail fast instead of occupying threads until they time out.
+ * After {@link CircuitBreakerConfig#getOpenDuration() openDuration} it becomes {@link State#HALF_OPEN half-open}
+ * and lets a few probe requests through: if all of them succeed the breaker closes, otherwise it opens again.
+ * <p>
+ * Every change of the state starts a new generation. A permission belongs to the generation it was granted in,
+ * and the outcome of a request permitted in an earlier generation is ignored, so that e.g. a slow failure of
+ * a request sent while the breaker was closed is not taken for a failed probe.
+ */
+public class CircuitBreaker {
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * Returned by {@link #tryAcquirePermission()} when the request has to be rejected
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * State of a circuit breaker
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final CircuitBreakerConfig config;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Outcomes of the latest requests in a ring buffer, a combination of {@link #FAILED} and {@link #SLOW} flags
+     */
+    private final byte[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * Constructs a breaker with the default configuration.
+     */
+    public CircuitBreaker() {
+        this(CircuitBreakerConfig.defaults());
+    }
+
+    /**
+     * Constructs a new breaker.
+     *
+     * @param config configuration of the breaker
+     */
+    public CircuitBreaker(CircuitBreakerConfig config) {
+        if (config.getWindowSize() < 1 || config.getMinimumCalls() < 1 || config.getHalfOpenCalls() < 1) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be positive");
+        }
+        this.config = config;
+        this.slowCallNanos = config.getSlowCallDuration().toNanos();
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.outcomes = new byte[config.getWindowSize()];
+    }
+
+    /**
+     * Asks for a permission to send a request. Every permitted request has to be reported by either
+     * {@link #onResult(long, long, boolean)} or {@link #onIgnored(long)} with the returned permission.
+     *
+     * @return permission to send the request, or {@link #REJECTED} if it has to be rejected
+     */
+    public long tryAcquirePermission() {
+        return tryAcquirePermission(System.nanoTime());
+    }
+
+    long tryAcquirePermission(long now) {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (now - openedAtNanos < openNanos) {
+                    return REJECTED;
+                }
+                state = State.HALF_OPEN;
+                generation++;
+                halfOpenPermits = config.getHalfOpenCalls();
+                halfOpenSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    return REJECTED;
+                }
+                halfOpenPermits--;
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the outcome of a permitted request.
+     *
+     * @param permission permission returned by {@link #tryAcquirePermission()} for the request
+     * @param nanos      time from sending the request until the response headers or the failure
+     * @param failed     true if the request has been completed without a response or with a {@code 5xx} status
+     */
+    public void onResult(long permission, long nanos, boolean failed) {
+        onResult(System.nanoTime(), permission, nanos, failed);
+    }
+
+    void onResult(long now, long permission, long nanos, boolean failed) {
+        byte outcome = (byte) ((failed ? FAILED : 0) | (nanos >= slowCallNanos ? SLOW : 0));
+        lock.lock();
+        try {
+            if (permission != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (outcome != 0) {
+                    open(now);
+                } else if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                    close();
+                }
+            } else if (state == State.CLOSED) {
+                record(outcome);
+                if (recorded >= config.getMinimumCalls()
+                        && (failures >= config.getFailureRateThreshold() * recorded
+                        || slowCalls >= config.getSlowCallRateThreshold() * recorded)) {
+                    open(now);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the permission of a request which has not been completed, e.g. because the sending thread was interrupted.
+     *
+     * @param permission permission returned by {@link #tryAcquirePermission()} for the request
+     */
+    public void onIgnored(long permission) {
+        lock.lock();
+        try {
+            if (permission == generation && state == State.HALF_OPEN) {
+                halfOpenPermits++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return current state of the breaker. An open breaker becomes half-open on the next request after the open duration
+     */
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(byte outcome) {
+        if (recorded == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        generation++;
+        openedAtNanos = now;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        generation++;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.mailtrap.testtask.client;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Configuration of a {@link CircuitBreaker}.
+ */
+@Getter
+@Builder
+public class CircuitBreakerConfig {
+
+    private static final CircuitBreakerConfig DEFAULTS = CircuitBreakerConfig.builder().build();
+
+    /**
+     * Fraction of failed requests, from 0 to 1, from which the circuit opens.
+     * A request has failed if it has been completed without a response or with a {@code 5xx} status
+     */
+    @Builder.Default
+    private final double failureRateThreshold = 0.5;
+
+    /**
+     * Fraction of slow requests, from 0 to 1, from which the circuit opens
+     */
+    @Builder.Default
+    private final double slowCallRateThreshold = 0.8;
+
+    /**
+     * Time to the response headers from which a request is considered slow
+     */
+    @Builder.Default
+    private final Duration slowCallDuration = Duration.ofSeconds(10);
+
+    /**
+     * Number of the latest requests the rates are computed from
+     */
+    @Builder.Default
+    private final int windowSize = 100;
+
+    /**
+     * Number of requests which have to be recorded before the rates are evaluated at all
+     */
+    @Builder.Default
+    private final int minimumCalls = 20;
+
+    /**
+     * Time the circuit stays open before probe requests are let through
+     */
+    @Builder.Default
+    private final Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * Number of probe requests in the half-open state, all of which have to succeed to close the circuit
+     */
+    @Builder.Default
+    private final int halfOpenCalls = 5;
+
+    /**
+     * @return default configuration
+     */
+    public static CircuitBreakerConfig defaults() {
+        return DEFAULTS;
+    }
+
+}
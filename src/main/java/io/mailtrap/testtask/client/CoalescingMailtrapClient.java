@@ -0,0 +1,235 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import io.mailtrap.testtask.request.BatchMail;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.BatchItemResponse;
+import io.mailtrap.testtask.response.BatchResponse;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.mailtrap.testtask.Constants.BATCH_MAX_REQUESTS;
+
+/**
+ * Mailtrap client coalescing individual sends into requests to the batch endpoint.
+ * <p>
+ * Emails are collected until {@code maxBatchSize} of them are pending or {@code maxDelay} has passed since the first one,
+ * then they are sent in one request and the per-email responses are handed back to the callers.
+ * Each caller gets the same {@link io.mailtrap.testtask.response.SuccessResponse} or
+ * {@link io.mailtrap.testtask.response.FailureResponse} it would get from {@link SendMailMailtrapClient#send(CommonMail)},
+ * so this client can be used in place of it. If the whole batch fails, every email of it fails the same way.
+ * <p>
+ * Emails are validated before being added to a batch, so one invalid email never fails the others,
+ * and are not validated again when the batch is sent.
+ */
+public class CoalescingMailtrapClient implements MailtrapClient, AutoCloseable {
+
+    private final SendMailMailtrapClient client;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Batch collecting new emails, {@code null} if there are no pending emails
+     */
+    private Batch current;
+
+    /**
+     * Constructs a new coalescing client.
+     *
+     * @param client       client used to send the batches
+     * @param maxBatchSize maximum number of emails in one batch, at most {@value io.mailtrap.testtask.Constants#BATCH_MAX_REQUESTS}
+     * @param maxDelay     maximum time the first email of a batch waits for other ones
+     */
+    public CoalescingMailtrapClient(SendMailMailtrapClient client, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize < 1 || maxBatchSize > BATCH_MAX_REQUESTS) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + BATCH_MAX_REQUESTS);
+        }
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay must not be negative");
+        }
+        this.client = Objects.requireNonNull(client, "client");
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /**
+     * Sends an email as a part of a batch, blocking until the batch has been sent.
+     *
+     * @param mail the email to be sent
+     * @return the response to the email
+     * @throws InvalidRequestBodyException if the request object is invalid
+     * @throws BaseMailtrapException       if an error occurs while sending the batch
+     */
+    @Override
+    public CommonResponse send(CommonMail mail) {
+        try {
+            return sendAsync(mail).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BaseMailtrapException) {
+                throw (BaseMailtrapException) e.getCause();
+            }
+            throw new BaseMailtrapException("An error has occurred while sending request", e.getCause());
+        }
+    }
+
+    /**
+     * Adds an email to the current batch, using the default executor of the wrapped client to send the batch.
+     *
+     * @see #sendAsync(CommonMail, Executor)
+     */
+    @Override
+    public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+        return sendAsync(mail, client.defaultExecutor());
+    }
+
+    /**
+     * Adds an email to the current batch. The email is validated on the calling thread.
+     *
+     * @param mail     the email to be sent
+     * @param executor executor used to send the batch, if this email starts a new one
+     * @return future completed with the response to the email,
+     * or completed exceptionally with {@link InvalidRequestBodyException} if the email is invalid
+     */
+    @Override
+    public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+        try {
+            client.validateRequestBodyOrThrowException(mail);
+        } catch (InvalidRequestBodyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        var future = new CompletableFuture<CommonResponse>();
+        Batch full = null;
+        Batch started = null;
+        lock.lock();
+        try {
+            if (current == null) {
+                current = new Batch(maxBatchSize, executor);
+                started = current;
+            }
+            current.add(mail, future);
+            if (current.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            send(full);
+        } else if (started != null) {
+            var batch = started;
+            CompletableFuture.delayedExecutor(maxDelayNanos, TimeUnit.NANOSECONDS, executor).execute(() -> flush(batch));
+        }
+        return future;
+    }
+
+    /**
+     * Sends the pending emails without waiting for the batch to fill up or for the delay to pass.
+     */
+    public void flush() {
+        flush(null);
+    }
+
+    /**
+     * Sends the pending emails. Emails added afterward are sent in a new batch.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * @param expected batch to be sent, {@code null} to send any pending one
+     */
+    private void flush(Batch expected) {
+        Batch batch;
+        lock.lock();
+        try {
+            batch = current;
+            if (batch == null || expected != null && batch != expected) {
+                return;
+            }
+            current = null;
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        var body = new BatchMail();
+        body.setRequests(batch.mails);
+        client.sendValidatedBatchAsync(body, batch.executor).whenComplete((response, error) -> {
+            if (error != null) {
+                var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                batch.futures.forEach(future -> future.completeExceptionally(cause));
+            } else {
+                complete(batch, response);
+            }
+        });
+    }
+
+    /**
+     * Hands the per-email responses back to the callers, or the response to the whole batch if it has none
+     */
+    private static void complete(Batch batch, CommonResponse response) {
+        if (!(response instanceof BatchResponse)) {
+            batch.futures.forEach(future -> future.complete(response));
+            return;
+        }
+
+        List<BatchItemResponse> items = ((BatchResponse) response).getResponses();
+        if (items == null || items.size() != batch.size()) {
+            var failure = new FailureResponse();
+            failure.setStatusCode(response.getStatusCode());
+            failure.setErrors(((BatchResponse) response).getErrors());
+            batch.futures.forEach(future -> future.complete(failure));
+            return;
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            batch.futures.get(i).complete(items.get(i).toCommonResponse());
+        }
+    }
+
+    /**
+     * Emails of one batch and the futures of their callers, in the same order
+     */
+    private static final class Batch {
+
+        private final List<CommonMail> mails;
+        private final List<CompletableFuture<CommonResponse>> futures;
+        private final Executor executor;
+
+        private Batch(int capacity, Executor executor) {
+            this.mails = new ArrayList<>(capacity);
+            this.futures = new ArrayList<>(capacity);
+            this.executor = executor;
+        }
+
+        private void add(CommonMail mail, CompletableFuture<CommonResponse> future) {
+            mails.add(mail);
+            futures.add(future);
+        }
+
+        private int size() {
+            return mails.size();
+        }
+
+    }
+
+}
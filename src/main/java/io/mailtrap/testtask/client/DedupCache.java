@@ -0,0 +1,335 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.metrics.SendMetrics;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the mails sent during the last {@link DedupConfig#getWindow() window}, so that a mail delivered twice by an
+ * at-least-once upstream is sent only once. A duplicate gets the response to the original send instead of sending
+ * another request, and a duplicate arriving while the original is in flight waits for its outcome.
+ * Only successful sends are remembered: after a failure the next duplicate is sent again.
+ * <p>
+ * Mails are identified by a 64-bit hash of the key returned by {@link DedupConfig#getKeyFunction() keyFunction},
+ * or by default of their fields, hashed in place without serializing the mail. Inline attachment content is hashed
+ * in full. Mails with file or stream attachments are never deduplicated by default, since telling them apart would
+ * mean reading their sources. The cache holds only the hash, the expiry time and the response of each mail,
+ * never the mail itself. It is a set-associative table of fixed size: a hash may occupy one of
+ * {@value #WAYS} slots, and when all of them are taken the one closest to expiry is replaced. The sets are guarded by
+ * striped locks, so the cache can be shared by all threads using a client.
+ */
+public class DedupCache {
+
+    private static final int WAYS = 4;
+    private static final int MAX_STRIPES = 64;
+
+    private final long windowNanos;
+    private final Function<CommonMail, String> keyFunction;
+    private final int setMask;
+    private final ReentrantLock[] locks;
+
+    private final long[] hashes;
+    private final long[] expiries;
+
+    /**
+     * Response to the first send of each remembered mail, {@code null} for a free slot
+     */
+    private final CompletableFuture<?>[] results;
+
+    /**
+     * Constructs a cache with the default configuration.
+     */
+    public DedupCache() {
+        this(DedupConfig.defaults());
+    }
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param config configuration of the cache
+     */
+    public DedupCache(DedupConfig config) {
+        if (config.getMaximumSize() < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (config.getWindow().isNegative() || config.getWindow().isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.windowNanos = config.getWindow().toNanos();
+        this.keyFunction = config.getKeyFunction();
+
+        int sets = Integer.highestOneBit(Math.max(1, (config.getMaximumSize() + WAYS - 1) / WAYS));
+        this.setMask = sets - 1;
+        this.locks = new ReentrantLock[Math.min(sets, MAX_STRIPES)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.hashes = new long[sets * WAYS];
+        this.expiries = new long[sets * WAYS];
+        this.results = new CompletableFuture<?>[sets * WAYS];
+    }
+
+    /**
+     * @param mail the email, already validated
+     * @return hash identifying duplicates of the email, {@code 0} if it is never deduplicated
+     */
+    public long fingerprint(CommonMail mail) {
+        var hash = new Hash();
+        if (keyFunction != null) {
+            String key = keyFunction.apply(mail);
+            if (key == null) {
+                return 0;
+            }
+            hash.add(key);
+        } else {
+            add(hash, mail.getFrom());
+            hash.add(mail.getTo() == null ? 0 : mail.getTo().size());
+            if (mail.getTo() != null) {
+                mail.getTo().forEach(to -> add(hash, to));
+            }
+            hash.add(mail.getSubject()).add(mail.getText()).add(mail.getHtml());
+            List<Attachment> attachments = mail.getAttachments();
+            hash.add(attachments == null ? 0 : attachments.size());
+            if (attachments != null) {
+                for (Attachment attachment : attachments) {
+                    if (attachment.getSource() != null) {
+                        return 0;
+                    }
+                    add(hash, attachment);
+                }
+            }
+        }
+        long fingerprint = hash.value();
+        // 0 is reserved for mails which are never deduplicated
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static void add(Hash hash, Address address) {
+        if (address == null) {
+            hash.add((String) null);
+        } else {
+            hash.add(address.getEmail()).add(address.getName());
+        }
+    }
+
+    private static void add(Hash hash, Attachment attachment) {
+        hash.add(attachment.getFilename())
+                .add(attachment.getType())
+                .add(attachment.getDisposition())
+                .add(attachment.getContentId())
+                .add(attachment.getContent());
+    }
+
+    /**
+     * Sends the email unless it has already been sent during the window, blocking until the response is known.
+     *
+     * @param fingerprint hash of the email, {@code 0} to always send it
+     * @param send        sends the email
+     * @param metrics     notified of duplicates
+     * @return the response to the first send of the email
+     */
+    CommonResponse send(long fingerprint, Supplier<CommonResponse> send, SendMetrics metrics) {
+        if (fingerprint == 0) {
+            return send.get();
+        }
+
+        var result = new CompletableFuture<CommonResponse>();
+        CompletableFuture<CommonResponse> original = putIfAbsent(fingerprint, result, System.nanoTime());
+        if (original != null) {
+            metrics.deduplicated();
+            try {
+                return original.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof BaseMailtrapException) {
+                    throw (BaseMailtrapException) e.getCause();
+                }
+                throw new BaseMailtrapException("An error has occurred while sending request", e.getCause());
+            }
+        }
+
+        CommonResponse response;
+        try {
+            response = send.get();
+        } catch (RuntimeException e) {
+            complete(fingerprint, result, null, e);
+            throw e;
+        }
+        complete(fingerprint, result, response, null);
+        return response;
+    }
+
+    /**
+     * Sends the email unless it has already been sent during the window.
+     *
+     * @param fingerprint hash of the email, {@code 0} to always send it
+     * @param send        sends the email
+     * @param metrics     notified of duplicates
+     * @return future completed with the response to the first send of the email
+     */
+    CompletableFuture<CommonResponse> sendAsync(long fingerprint, Supplier<CompletableFuture<CommonResponse>> send,
+                                                SendMetrics metrics) {
+        if (fingerprint == 0) {
+            return send.get();
+        }
+
+        var result = new CompletableFuture<CommonResponse>();
+        CompletableFuture<CommonResponse> original = putIfAbsent(fingerprint, result, System.nanoTime());
+        if (original != null) {
+            metrics.deduplicated();
+            return original.copy();
+        }
+
+        CompletableFuture<CommonResponse> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, error) -> complete(fingerprint, result, response, error));
+        return result.copy();
+    }
+
+    /**
+     * @return number of remembered mails which have not left their window yet
+     */
+    public int size() {
+        return size(System.nanoTime());
+    }
+
+    int size(long now) {
+        int size = 0;
+        for (int set = 0; set <= setMask; set++) {
+            ReentrantLock lock = lockOf(set);
+            lock.lock();
+            try {
+                for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                    if (results[slot] != null && expiries[slot] - now > 0) {
+                        size++;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remembers the result of the first send of a mail.
+     *
+     * @return result of the first send if the mail is remembered and has not left its window, otherwise {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<CommonResponse> putIfAbsent(long fingerprint, CompletableFuture<CommonResponse> result, long now) {
+        int set = setOf(fingerprint);
+        ReentrantLock lock = lockOf(set);
+        lock.lock();
+        try {
+            int victim = -1;
+            boolean victimFree = false;
+            for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                boolean live = results[slot] != null && expiries[slot] - now > 0;
+                if (live && hashes[slot] == fingerprint) {
+                    return (CompletableFuture<CommonResponse>) results[slot];
+                }
+                if (!live) {
+                    if (!victimFree) {
+                        victim = slot;
+                        victimFree = true;
+                    }
+                } else if (!victimFree && (victim < 0 || expiries[slot] - expiries[victim] < 0)) {
+                    victim = slot;
+                }
+            }
+            hashes[victim] = fingerprint;
+            expiries[victim] = now + windowNanos;
+            results[victim] = result;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes the result of the first send, forgetting the mail unless it has been accepted
+     */
+    private void complete(long fingerprint, CompletableFuture<CommonResponse> result, CommonResponse response,
+                          Throwable error) {
+        if (error != null || response == null || !response.isSuccess()) {
+            int set = setOf(fingerprint);
+            ReentrantLock lock = lockOf(set);
+            lock.lock();
+            try {
+                for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                    if (results[slot] == result) {
+                        results[slot] = null;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (error != null) {
+            result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error);
+        } else {
+            result.complete(response);
+        }
+    }
+
+    private int setOf(long fingerprint) {
+        return (int) (fingerprint ^ fingerprint >>> 32) & setMask;
+    }
+
+    private ReentrantLock lockOf(int set) {
+        return locks[set & (locks.length - 1)];
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the added values, finished with the MurmurHash3 mixer. Every string is prefixed with its
+     * length, so that adjacent fields can not shift into each other
+     */
+    private static final class Hash {
+
+        private long hash = 0xcbf29ce484222325L;
+
+        private Hash add(String value) {
+            if (value == null) {
+                return add(-1);
+            }
+            add(value.length());
+            long h = hash;
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            hash = h;
+            return this;
+        }
+
+        private Hash add(long value) {
+            hash = (hash ^ value) * 0x100000001b3L;
+            return this;
+        }
+
+        private long value() {
+            long h = hash;
+            h = (h ^ h >>> 33) * 0xff51afd7ed558ccdL;
+            h = (h ^ h >>> 33) * 0xc4ceb9fe1a85ec53L;
+            return h ^ h >>> 33;
+        }
+
+    }
+
+}
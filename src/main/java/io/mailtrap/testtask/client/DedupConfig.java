@@ -0,0 +1,50 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.request.CommonMail;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Configuration of a {@link DedupCache}.
+ */
+@Getter
+@Builder
+public class DedupConfig {
+
+    private static final DedupConfig DEFAULTS = DedupConfig.builder().build();
+
+    /**
+     * Time after the first send during which the same mail is not sent again
+     */
+    @Builder.Default
+    private final Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Maximum number of remembered mails. When it is reached, the mail closest to leaving its window is forgotten first
+     */
+    @Builder.Default
+    private final int maximumSize = 64 * 1024;
+
+    /**
+     * Key identifying duplicates of a mail, e.g. the id of the upstream message. A mail with a {@code null} key is never
+     * deduplicated.
+     * <p>
+     * When {@code null}, which is the default, mails are identified by a hash of their sender, recipients, subject,
+     * text, HTML and inline attachments, costing one pass over these strings per send. Mails with file or stream
+     * attachments are never deduplicated, since their sources would have to be read - set a key function to
+     * deduplicate them
+     */
+    @Builder.Default
+    private final Function<CommonMail, String> keyFunction = null;
+
+    /**
+     * @return default configuration
+     */
+    public static DedupConfig defaults() {
+        return DEFAULTS;
+    }
+
+}
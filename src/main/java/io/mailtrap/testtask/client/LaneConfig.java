@@ -0,0 +1,34 @@
+package io.mailtrap.testtask.client;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Configuration of one lane of a {@link PriorityScheduler}.
+ */
+@Getter
+@Builder
+public class LaneConfig {
+
+    /**
+     * Name the lane is referred to by
+     */
+    @NonNull
+    private final String name;
+
+    /**
+     * Share of the lane in {@link PriorityScheduler.DispatchPolicy#WEIGHTED_FAIR weighted-fair} dispatch: while lanes
+     * compete for connections, each of them gets a number of sends proportional to its weight
+     */
+    @Builder.Default
+    private final int weight = 1;
+
+    /**
+     * Maximum number of requests of the lane in flight at once, e.g. to keep a campaign from taking every connection
+     * even when nothing else is queued
+     */
+    @Builder.Default
+    private final int maxInFlight = Integer.MAX_VALUE;
+
+}
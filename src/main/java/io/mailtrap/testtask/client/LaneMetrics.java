@@ -0,0 +1,61 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.metrics.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one lane of a {@link PriorityScheduler}, used to check its latency objectives.
+ */
+public final class LaneMetrics {
+
+    private final Histogram waitTime = new Histogram();
+    private final LongAdder dispatched = new LongAdder();
+    private volatile int queueDepth;
+    private volatile int inFlight;
+
+    /**
+     * @return time in nanoseconds the sends of the lane have waited in its queue before being dispatched
+     */
+    public Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return number of sends of the lane dispatched to the client
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * @return number of sends waiting in the queue of the lane
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return number of sends of the lane dispatched and not yet completed
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    void dispatched(long waitNanos) {
+        waitTime.record(waitNanos);
+        dispatched.increment();
+    }
+
+    void update(int queueDepth, int inFlight) {
+        this.queueDepth = queueDepth;
+        this.inFlight = inFlight;
+    }
+
+    @Override
+    public String toString() {
+        return "LaneMetrics{queueDepth=" + queueDepth + ", inFlight=" + inFlight + ", dispatched=" + getDispatched()
+                + ", waitTime=[" + waitTime + "]}";
+    }
+
+}
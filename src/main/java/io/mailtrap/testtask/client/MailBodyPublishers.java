@@ -0,0 +1,208 @@
+package io.mailtrap.testtask.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.mailtrap.testtask.Mapper;
+import io.mailtrap.testtask.exception.JsonException;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.BatchMail;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Creates request body publishers for mails.
+ * <p>
+ * Small mails are serialized straight to UTF-8 bytes, skipping the intermediate {@code String}.
+ * Mails estimated to be larger than the threshold are serialized on the fly by {@link StreamingBodyPublisher},
+ * so the serialized payload is never held on the heap as a whole.
+ * Mails estimated to be larger than the compression threshold are gzip-compressed on the fly as well.
+ */
+final class MailBodyPublishers {
+
+    private MailBodyPublishers() {
+    }
+
+    /**
+     * @param mail                 request body
+     * @param streamingThreshold   estimated size in bytes from which the body is streamed
+     * @param compressionThreshold estimated size in bytes from which the body is compressed, negative to never compress
+     * @return body publisher for the mail
+     * @throws JsonException if an error occurs while serializing a small mail
+     */
+    static HttpRequest.BodyPublisher of(CommonMail mail, long streamingThreshold, long compressionThreshold) {
+        return of(mail, estimateSize(mail), streamingThreshold, compressionThreshold);
+    }
+
+    /**
+     * @param batch                request body
+     * @param streamingThreshold   estimated size in bytes from which the body is streamed
+     * @param compressionThreshold estimated size in bytes from which the body is compressed, negative to never compress
+     * @return body publisher for the batch of mails
+     * @throws JsonException if an error occurs while serializing a small batch
+     */
+    static HttpRequest.BodyPublisher of(BatchMail batch, long streamingThreshold, long compressionThreshold) {
+        long size = 0;
+        for (CommonMail mail : batch.getRequests()) {
+            size += estimateSize(mail);
+        }
+        return of(batch, size, streamingThreshold, compressionThreshold);
+    }
+
+    /**
+     * @param fragments            fragments of a rendered {@link io.mailtrap.testtask.request.MailTemplate}
+     * @param compressionThreshold size in bytes from which the body is compressed, negative to never compress
+     * @return body publisher sending the fragments as they are, without copying them into one array
+     */
+    static HttpRequest.BodyPublisher ofFragments(List<byte[]> fragments, long compressionThreshold) {
+        long length = 0;
+        for (byte[] fragment : fragments) {
+            length += fragment.length;
+        }
+
+        if (compressionThreshold >= 0 && length >= compressionThreshold) {
+            return new GzipBodyPublisher(out -> {
+                for (byte[] fragment : fragments) {
+                    out.write(fragment);
+                }
+            });
+        }
+        return new FragmentsBodyPublisher(fragments, length);
+    }
+
+    /**
+     * @param body publisher created by this class
+     * @return true if the body is gzip-compressed and has to be sent with the {@code Content-Encoding} header
+     */
+    static boolean isCompressed(HttpRequest.BodyPublisher body) {
+        return body instanceof GzipBodyPublisher;
+    }
+
+    private static HttpRequest.BodyPublisher of(Object body, long estimatedSize, long streamingThreshold, long compressionThreshold) {
+        if (compressionThreshold >= 0 && estimatedSize >= compressionThreshold) {
+            return new GzipBodyPublisher(out -> Mapper.get().writeValue(out, body));
+        }
+        if (estimatedSize >= streamingThreshold) {
+            return new StreamingBodyPublisher(out -> Mapper.get().writeValue(out, body));
+        }
+
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(Mapper.get().writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new JsonException("An error has occurred while serializing the object to JSON", e);
+        }
+    }
+
+    /**
+     * Estimates the size of the serialized mail from the lengths of its text fields and attachment sources,
+     * without serializing it.
+     *
+     * @param mail request body
+     * @return estimated size in bytes
+     */
+    static long estimateSize(CommonMail mail) {
+        long size = length(mail.getSubject()) + length(mail.getText()) + length(mail.getHtml());
+        size += addressesSize(mail.getTo());
+        if (mail.getFrom() != null) {
+            size += length(mail.getFrom().getEmail()) + length(mail.getFrom().getName());
+        }
+
+        List<Attachment> attachments = mail.getAttachments();
+        if (attachments != null) {
+            for (Attachment attachment : attachments) {
+                if (attachment != null) {
+                    size += length(attachment.getFilename()) + contentSize(attachment);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return size of the base64-encoded content, {@link Long#MAX_VALUE} if the length of the source is not known
+     */
+    private static long contentSize(Attachment attachment) {
+        if (attachment.getSource() == null) {
+            return length(attachment.getContent());
+        }
+
+        long length = attachment.getSource().length();
+        return length < 0 ? Long.MAX_VALUE / 2 : (length + 2) / 3 * 4;
+    }
+
+    private static long addressesSize(List<Address> addresses) {
+        long size = 0;
+        if (addresses != null) {
+            for (Address address : addresses) {
+                if (address != null) {
+                    size += length(address.getEmail()) + length(address.getName());
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Streams the body compressed with gzip. The length of the compressed body is not known up front,
+     * so it is always streamed, and the deflater works on one chunk at a time
+     */
+    private static final class GzipBodyPublisher implements HttpRequest.BodyPublisher {
+
+        private static final int BUFFER_SIZE = 8 * 1024;
+
+        private final StreamingBodyPublisher delegate;
+
+        private GzipBodyPublisher(StreamingBodyPublisher.BodyWriter writer) {
+            this.delegate = new StreamingBodyPublisher(out -> {
+                try (var gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+                    writer.writeTo(gzip);
+                }
+            });
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            delegate.subscribe(subscriber);
+        }
+
+    }
+
+    /**
+     * Publishes byte array fragments with a known total length, so the request is not sent in chunks
+     */
+    private static final class FragmentsBodyPublisher implements HttpRequest.BodyPublisher {
+
+        private final List<byte[]> fragments;
+        private final long contentLength;
+
+        private FragmentsBodyPublisher(List<byte[]> fragments, long contentLength) {
+            this.fragments = fragments;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            HttpRequest.BodyPublishers.ofByteArrays(fragments).subscribe(subscriber);
+        }
+
+    }
+
+}
@@ -3,6 +3,32 @@ package io.mailtrap.testtask.client;
 import io.mailtrap.testtask.request.CommonMail;
 import io.mailtrap.testtask.response.CommonResponse;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 public interface MailtrapClient {
     CommonResponse send(CommonMail mail);
+
+    /**
+     * Sends an email without blocking the calling thread. By default it is sent on {@link ForkJoinPool#commonPool()}.
+     *
+     * @param mail the email to be sent
+     * @return future completed with the response
+     */
+    default CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+        return sendAsync(mail, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sends an email without blocking the calling thread. By default {@link #send(CommonMail)} is run on the executor,
+     * implementations with a non-blocking transport override it.
+     *
+     * @param mail     the email to be sent
+     * @param executor executor the email is sent on
+     * @return future completed with the response
+     */
+    default CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> send(mail), executor);
+    }
 }
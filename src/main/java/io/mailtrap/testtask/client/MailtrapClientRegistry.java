@@ -0,0 +1,117 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.validation.MailValidator;
+import lombok.NonNull;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Registry of clients of many tenants, each with its own token and inbox, sharing one transport.
+ * <p>
+ * All clients of a registry send through one HTTP client, so they share its connection pool (a single multiplexed
+ * connection per host with HTTP/2), and validate mails with one validator. Requests are serialized by the shared
+ * {@link io.mailtrap.testtask.Mapper}. A client of a tenant only holds its token, inbox, environment and optional
+ * rate limiter, so memory and connection count do not grow with the number of tenants.
+ * <p>
+ * The clients are regular {@link SendMailMailtrapClient}s and can be configured further, e.g. with a retry policy.
+ * Replacing the HTTP client of one of them by {@link SendMailMailtrapClient#setTransportConfig(TransportConfig)}
+ * detaches it from the shared transport.
+ */
+public class MailtrapClientRegistry {
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final Executor defaultExecutor;
+    private final MailValidator mailValidator;
+    private final ConcurrentMap<String, SendMailMailtrapClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a registry with the default transport and the {@link MailValidator#fast() fast} validator.
+     */
+    public MailtrapClientRegistry() {
+        this(TransportConfig.defaults(), MailValidator.fast());
+    }
+
+    /**
+     * Constructs a new registry.
+     *
+     * @param transportConfig configuration of the HTTP client shared by all tenants
+     * @param mailValidator   validator shared by all tenants
+     */
+    public MailtrapClientRegistry(@NonNull TransportConfig transportConfig, @NonNull MailValidator mailValidator) {
+        this(transportConfig.httpClient(), transportConfig.getRequestTimeout(), transportConfig.defaultExecutor(), mailValidator);
+    }
+
+    MailtrapClientRegistry(HttpClient httpClient, Duration requestTimeout, Executor defaultExecutor, MailValidator mailValidator) {
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.defaultExecutor = defaultExecutor;
+        this.mailValidator = mailValidator;
+    }
+
+    /**
+     * Creates the client of a tenant, replacing its previous client if the tenant is already registered,
+     * e.g. after its token has been rotated.
+     *
+     * @param tenantId     ID of the tenant
+     * @param tenantConfig settings of the tenant
+     * @return client of the tenant
+     */
+    public SendMailMailtrapClient register(@NonNull String tenantId, @NonNull TenantConfig tenantConfig) {
+        var client = new SendMailMailtrapClient(tenantConfig.getToken(), tenantConfig.getInboxId(),
+                httpClient, requestTimeout, defaultExecutor, mailValidator);
+        client.setSandboxEnvironment(tenantConfig.isSandboxEnvironment());
+        if (tenantConfig.getPermitsPerSecond() > 0) {
+            client.setRateLimiter(new RateLimiter(tenantConfig.getPermitsPerSecond(), tenantConfig.getBurst()));
+        }
+        clients.put(tenantId, client);
+        return client;
+    }
+
+    /**
+     * @param tenantId ID of the tenant
+     * @return client of the tenant
+     * @throws IllegalArgumentException if the tenant is not registered
+     */
+    public SendMailMailtrapClient get(@NonNull String tenantId) {
+        var client = clients.get(tenantId);
+        if (client == null) {
+            throw new IllegalArgumentException("Tenant " + tenantId + " is not registered");
+        }
+        return client;
+    }
+
+    /**
+     * Removes the client of a tenant. Sends in progress are not affected.
+     *
+     * @param tenantId ID of the tenant
+     * @return true if the tenant has been registered
+     */
+    public boolean remove(@NonNull String tenantId) {
+        return clients.remove(tenantId) != null;
+    }
+
+    /**
+     * @return number of registered tenants
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * Opens connections of the shared transport ahead of the first sends of any tenant.
+     *
+     * @param baseUrl base URL to connect to, both the sandbox and the production hosts when {@code null}
+     * @see SendMailMailtrapClient#warmUp(int)
+     */
+    public void warmUp(String baseUrl) {
+        var client = new SendMailMailtrapClient(null, 0, httpClient, requestTimeout, defaultExecutor, mailValidator);
+        client.setBaseUrl(baseUrl);
+        client.warmUp();
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.Mapper;
+import io.mailtrap.testtask.exception.JsonException;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import io.mailtrap.testtask.validation.MailValidator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Initializes the runtime shared by the clients ahead of the first send: the HTTP client of the default transport
+ * (including the default SSL context), the serializers of the request models and the deserializers of the responses.
+ * <p>
+ * All of it is otherwise initialized on the first send and delays it. {@link #preloadAsync()} started early in
+ * the start-up of an application overlaps the initialization with the rest of the start-up.
+ * {@link MailValidator#jakarta()} is initialized separately, on its first call.
+ */
+public final class Preloader {
+
+    private static final byte[] SUCCESS = "{\"success\":true,\"message_ids\":[\"id\"]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FAILURE = "{\"success\":false,\"errors\":[\"error\"]}".getBytes(StandardCharsets.UTF_8);
+
+    private Preloader() {
+    }
+
+    /**
+     * Initializes the shared runtime on the calling thread.
+     *
+     * @throws JsonException if the serializers can not be initialized
+     */
+    public static void preload() {
+        preloadTransport();
+        preloadSerialization();
+    }
+
+    /**
+     * Initializes the HTTP client and the serializers concurrently, in the background.
+     *
+     * @return future completed once the shared runtime is initialized
+     */
+    public static CompletableFuture<Void> preloadAsync() {
+        var executor = VirtualThreads.newExecutor("mailtrap-preload");
+        var preloaded = CompletableFuture.allOf(
+                CompletableFuture.runAsync(Preloader::preloadTransport, executor),
+                CompletableFuture.runAsync(Preloader::preloadSerialization, executor));
+        // the submitted tasks still run, the executor only stops accepting new ones
+        executor.shutdown();
+        return preloaded;
+    }
+
+    private static void preloadTransport() {
+        TransportConfig.defaults().httpClient();
+    }
+
+    private static void preloadSerialization() {
+        var address = new Address();
+        address.setEmail("preload@example.com");
+        var mail = new CommonMail();
+        mail.setFrom(address);
+        mail.setTo(List.of(address));
+        mail.setSubject("Preload");
+        mail.setText("Preload");
+
+        MailValidator.fast().validate(mail);
+        MailBodyPublishers.of(mail, Long.MAX_VALUE, -1);
+        try {
+            Mapper.get().readValue(SUCCESS, SuccessResponse.class);
+            Mapper.get().readValue(FAILURE, FailureResponse.class);
+        } catch (IOException e) {
+            throw new JsonException("An error has occurred while converting JSON", e);
+        }
+    }
+
+}
@@ -0,0 +1,312 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules sends of named lanes onto one shared client, so that e.g. password resets are not queued behind
+ * a campaign.
+ * <p>
+ * At most {@code maxInFlight} sends are dispatched to the client at once, the rest wait in the queue of their lane.
+ * Whenever a send completes, the next one is taken according to the {@link DispatchPolicy}: with
+ * {@link DispatchPolicy#STRICT_PRIORITY} from the first lane with a queued send, in the order the lanes are configured,
+ * so high-priority sends always get the next free slot; with {@link DispatchPolicy#WEIGHTED_FAIR} from the lane which
+ * is furthest behind its {@link LaneConfig#getWeight() weight}, so no lane starves. A lane never has more than its
+ * {@link LaneConfig#getMaxInFlight() maxInFlight} sends in flight.
+ * <p>
+ * {@link #lane(String)} returns a {@link MailtrapClient} sending through a lane, which can be used in place of the
+ * client, e.g. by {@link BulkSender}.
+ */
+public class PriorityScheduler {
+
+    /**
+     * How the next send is chosen among the lanes
+     */
+    public enum DispatchPolicy {
+        STRICT_PRIORITY,
+        WEIGHTED_FAIR
+    }
+
+    /**
+     * Pass increment of a lane with weight 1 in stride scheduling, lanes with higher weights advance slower
+     */
+    private static final long STRIDE = 1L << 20;
+
+    private final MailtrapClient client;
+    private final int maxInFlight;
+    private final DispatchPolicy policy;
+    private final Lane[] lanes;
+    private final Map<String, Lane> lanesByName = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Number of times {@link #dispatch()} has been called while it was running
+     */
+    private final AtomicInteger dispatches = new AtomicInteger();
+
+    private int inFlight;
+
+    /**
+     * Pass of the last dispatched send, a lane becoming busy after being idle starts from it
+     */
+    private long currentPass;
+
+    /**
+     * Constructs a new scheduler.
+     *
+     * @param client      client the sends are dispatched to
+     * @param maxInFlight maximum number of sends in flight across all lanes
+     * @param policy      how the next send is chosen among the lanes
+     * @param lanes       lanes, from the highest to the lowest priority
+     */
+    public PriorityScheduler(MailtrapClient client, int maxInFlight, DispatchPolicy policy, List<LaneConfig> lanes) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        if (lanes.isEmpty()) {
+            throw new IllegalArgumentException("At least one lane must be configured");
+        }
+        this.client = Objects.requireNonNull(client, "client");
+        this.maxInFlight = maxInFlight;
+        this.policy = Objects.requireNonNull(policy, "policy");
+        this.lanes = new Lane[lanes.size()];
+        for (int i = 0; i < this.lanes.length; i++) {
+            LaneConfig config = lanes.get(i);
+            if (config.getWeight() < 1 || config.getMaxInFlight() < 1) {
+                throw new IllegalArgumentException("Weight and maxInFlight of lane " + config.getName() + " must be positive");
+            }
+            this.lanes[i] = new Lane(config);
+            if (lanesByName.put(config.getName(), this.lanes[i]) != null) {
+                throw new IllegalArgumentException("Lane " + config.getName() + " is configured twice");
+            }
+        }
+    }
+
+    /**
+     * Queues a send in a lane, using the default executor of the client.
+     *
+     * @param lane name of the lane
+     * @param mail the email to be sent
+     * @return future completed with the response, as returned by {@link MailtrapClient#sendAsync(CommonMail)}
+     * @throws IllegalArgumentException if there is no such lane
+     */
+    public CompletableFuture<CommonResponse> submit(String lane, CommonMail mail) {
+        return submit(laneOf(lane), mail, null);
+    }
+
+    /**
+     * @param lane name of the lane
+     * @return client sending through the lane
+     * @throws IllegalArgumentException if there is no such lane
+     */
+    public MailtrapClient lane(String lane) {
+        return new LaneClient(laneOf(lane));
+    }
+
+    /**
+     * @param lane name of the lane
+     * @return metrics of the lane
+     * @throws IllegalArgumentException if there is no such lane
+     */
+    public LaneMetrics getMetrics(String lane) {
+        return laneOf(lane).metrics;
+    }
+
+    private Lane laneOf(String name) {
+        var lane = lanesByName.get(name);
+        if (lane == null) {
+            throw new IllegalArgumentException("Lane " + name + " is not configured");
+        }
+        return lane;
+    }
+
+    private CompletableFuture<CommonResponse> submit(Lane lane, CommonMail mail, Executor executor) {
+        var send = new Send(mail, executor, System.nanoTime());
+        lock.lock();
+        try {
+            if (policy == DispatchPolicy.WEIGHTED_FAIR && lane.queue.isEmpty() && lane.inFlight == 0) {
+                lane.pass = Math.max(lane.pass, currentPass);
+            }
+            lane.queue.add(send);
+            lane.updateMetrics();
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+        return send.future;
+    }
+
+    /**
+     * Dispatches queued sends while there are free slots. The sends are started outside the lock, as the client may
+     * complete them synchronously. Such a completion calls this method again, so only the thread raising
+     * {@link #dispatches} from zero dispatches, and the others leave it to that thread instead of recursing
+     */
+    private void dispatch() {
+        if (dispatches.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            while (true) {
+                Lane lane;
+                Send send;
+                lock.lock();
+                try {
+                    lane = inFlight < maxInFlight ? next() : null;
+                    if (lane == null) {
+                        break;
+                    }
+                    send = lane.queue.poll();
+                    lane.inFlight++;
+                    lane.pass += lane.stride;
+                    currentPass = lane.pass;
+                    inFlight++;
+                    lane.updateMetrics();
+                } finally {
+                    lock.unlock();
+                }
+                lane.metrics.dispatched(System.nanoTime() - send.queuedAt);
+                start(lane, send);
+            }
+            missed = dispatches.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * @return lane the next send is taken from, {@code null} if no lane with queued sends may dispatch one
+     */
+    private Lane next() {
+        Lane next = null;
+        for (Lane lane : lanes) {
+            if (lane.queue.isEmpty() || lane.inFlight >= lane.config.getMaxInFlight()) {
+                continue;
+            }
+            if (policy == DispatchPolicy.STRICT_PRIORITY) {
+                return lane;
+            }
+            if (next == null || lane.pass < next.pass) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private void start(Lane lane, Send send) {
+        CompletableFuture<CommonResponse> future;
+        try {
+            future = send.executor == null ? client.sendAsync(send.mail) : client.sendAsync(send.mail, send.executor);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((response, error) -> {
+            lock.lock();
+            try {
+                lane.inFlight--;
+                inFlight--;
+                lane.updateMetrics();
+            } finally {
+                lock.unlock();
+            }
+
+            if (error != null) {
+                send.future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            } else {
+                send.future.complete(response);
+            }
+            dispatch();
+        });
+    }
+
+    /**
+     * Queue and state of one lane, guarded by the lock of the scheduler
+     */
+    private static final class Lane {
+
+        private final LaneConfig config;
+        private final long stride;
+        private final ArrayDeque<Send> queue = new ArrayDeque<>();
+        private final LaneMetrics metrics = new LaneMetrics();
+        private int inFlight;
+        private long pass;
+
+        private Lane(LaneConfig config) {
+            this.config = config;
+            this.stride = STRIDE / config.getWeight();
+        }
+
+        private void updateMetrics() {
+            metrics.update(queue.size(), inFlight);
+        }
+
+    }
+
+    /**
+     * Queued send and the future of its caller
+     */
+    private static final class Send {
+
+        private final CommonMail mail;
+        private final Executor executor;
+        private final long queuedAt;
+        private final CompletableFuture<CommonResponse> future = new CompletableFuture<>();
+
+        private Send(CommonMail mail, Executor executor, long queuedAt) {
+            this.mail = mail;
+            this.executor = executor;
+            this.queuedAt = queuedAt;
+        }
+
+    }
+
+    /**
+     * Client sending through one lane
+     */
+    private final class LaneClient implements MailtrapClient {
+
+        private final Lane lane;
+
+        private LaneClient(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public CommonResponse send(CommonMail mail) {
+            try {
+                return sendAsync(mail).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof BaseMailtrapException) {
+                    throw (BaseMailtrapException) e.getCause();
+                }
+                throw new BaseMailtrapException("An error has occurred while sending request", e.getCause());
+            }
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+            return submit(lane, mail, null);
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+            return submit(lane, mail, executor);
+        }
+
+    }
+
+}
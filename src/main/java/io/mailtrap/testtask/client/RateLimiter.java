@@ -0,0 +1,157 @@
+package io.mailtrap.testtask.client;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side token bucket limiting the rate of requests sent by one client, shared by all threads using it.
+ * <p>
+ * Implemented as a generic cell rate algorithm: instead of counting tokens it keeps the theoretical time the next
+ * request may be sent, so a reservation is a couple of arithmetic operations under a short lock.
+ * <p>
+ * When Mailtrap API answers with {@code 429 Too Many Requests} the limiter is {@link #throttle(Duration) throttled}:
+ * nothing is sent until {@code Retry-After} has passed and the rate is halved. Every accepted request then restores
+ * a fraction of the configured rate, so the client settles at the highest rate the API sustains.
+ */
+public class RateLimiter {
+
+    private static final double RECOVERY_STEP = 0.02;
+    private static final double MIN_RATE_FRACTION = 0.05;
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double currentPermitsPerSecond;
+    private long intervalNanos;
+    private long theoreticalArrivalNanos;
+    private long throttledUntilNanos;
+
+    /**
+     * How many times a request answered with {@code 429 Too Many Requests} is sent,
+     * before the failure response is returned to the caller
+     */
+    @Getter
+    @Setter
+    private volatile int maxThrottledAttempts = 5;
+
+    /**
+     * Constructs a limiter which does not allow bursts.
+     *
+     * @param permitsPerSecond maximum number of requests per second
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, 1);
+    }
+
+    /**
+     * Constructs a new limiter.
+     *
+     * @param permitsPerSecond maximum number of requests per second
+     * @param burst            number of requests which may be sent at once after a period of inactivity
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.currentPermitsPerSecond = permitsPerSecond;
+        this.intervalNanos = toIntervalNanos(permitsPerSecond);
+        this.theoreticalArrivalNanos = System.nanoTime();
+        this.throttledUntilNanos = theoreticalArrivalNanos;
+    }
+
+    /**
+     * Reserves a permit for one request.
+     *
+     * @return time in nanoseconds the caller has to wait before sending the request, zero if it may be sent right away
+     */
+    public long reserve() {
+        return reserve(System.nanoTime());
+    }
+
+    long reserve(long now) {
+        lock.lock();
+        try {
+            long earliest = Math.max(now, throttledUntilNanos);
+            long start = Math.max(theoreticalArrivalNanos, earliest);
+            long sendAt = Math.max(earliest, start - (burst - 1) * intervalNanos);
+            theoreticalArrivalNanos = start + intervalNanos;
+            return sendAt - now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a permit for one request is available.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long delay = reserve();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Pauses sending for the whole client and halves the current rate.
+     *
+     * @param retryAfter time Mailtrap API asked to wait before the next request
+     */
+    public void throttle(Duration retryAfter) {
+        throttle(System.nanoTime(), retryAfter.toNanos());
+    }
+
+    void throttle(long now, long retryAfterNanos) {
+        lock.lock();
+        try {
+            throttledUntilNanos = Math.max(throttledUntilNanos, now + retryAfterNanos);
+            updateRate(Math.max(currentPermitsPerSecond / 2, permitsPerSecond * MIN_RATE_FRACTION));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Notifies the limiter that a request has not been throttled, which gradually restores the configured rate.
+     */
+    public void onAccepted() {
+        lock.lock();
+        try {
+            if (currentPermitsPerSecond < permitsPerSecond) {
+                updateRate(Math.min(currentPermitsPerSecond + permitsPerSecond * RECOVERY_STEP, permitsPerSecond));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the rate currently allowed, lower than the configured one after throttling
+     */
+    public double getCurrentPermitsPerSecond() {
+        lock.lock();
+        try {
+            return currentPermitsPerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateRate(double newPermitsPerSecond) {
+        currentPermitsPerSecond = newPermitsPerSecond;
+        intervalNanos = toIntervalNanos(newPermitsPerSecond);
+    }
+
+    private static long toIntervalNanos(double permitsPerSecond) {
+        return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.mailtrap.testtask.client;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Objects;
+
+/**
+ * Immutable part of every send request of one client configuration - the endpoint URIs and the constant headers.
+ * Built once per configuration, so a send only copies prepared values into a new request builder.
+ */
+final class RequestTemplate {
+
+    private final boolean sandboxEnvironment;
+    private final String baseUrl;
+    private final URI sendUri;
+    private final URI batchUri;
+    private final String[] headers;
+
+    RequestTemplate(boolean sandboxEnvironment, String baseUrl, URI sendUri, URI batchUri, String token) {
+        this.sandboxEnvironment = sandboxEnvironment;
+        this.baseUrl = baseUrl;
+        this.sendUri = sendUri;
+        this.batchUri = batchUri;
+        this.headers = new String[]{
+                "Accept", "application/json",
+                "Accept-Encoding", "gzip",
+                "Content-Type", "application/json; charset=UTF-8",
+                "Authorization", "Bearer " + token
+        };
+    }
+
+    /**
+     * @param sandboxEnvironment current environment of the client
+     * @param baseUrl            current base URL of the client, {@code null} if the default one is used
+     * @return true if the template has been built for the given configuration
+     */
+    boolean isBuiltFor(boolean sandboxEnvironment, String baseUrl) {
+        return this.sandboxEnvironment == sandboxEnvironment && Objects.equals(this.baseUrl, baseUrl);
+    }
+
+    /**
+     * @return new request builder with the send endpoint URI and the constant headers set
+     */
+    HttpRequest.Builder newSendRequest() {
+        return HttpRequest.newBuilder(sendUri).headers(headers);
+    }
+
+    /**
+     * @return new request builder with the batch endpoint URI and the constant headers set
+     */
+    HttpRequest.Builder newBatchRequest() {
+        return HttpRequest.newBuilder(batchUri).headers(headers);
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.mailtrap.testtask.client;
+
+/**
+ * How {@link SendMailMailtrapClient} reads the responses to single emails.
+ * Responses to batches are always bound by Jackson databind.
+ */
+public enum ResponseMode {
+
+    /**
+     * Responses are bound to {@link io.mailtrap.testtask.response.SuccessResponse} or
+     * {@link io.mailtrap.testtask.response.FailureResponse} by Jackson databind through bean introspection,
+     * without the hand-written deserializers
+     */
+    BIND,
+
+    /**
+     * Only {@code success}, {@code message_ids} and {@code errors} are pulled from the response by the Jackson streaming
+     * parser, skipping databind and its reflection. Other fields are skipped without being materialized. Default mode
+     */
+    STREAMING,
+
+    /**
+     * The body of a {@code 200} response is discarded without being parsed, and a
+     * {@link io.mailtrap.testtask.response.SuccessResponse} without message IDs is returned.
+     * Other responses are parsed as in the {@link #STREAMING} mode, so errors are still reported
+     */
+    STATUS_ONLY
+
+}
@@ -0,0 +1,65 @@
+package io.mailtrap.testtask.client;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.mailtrap.testtask.Mapper;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import io.mailtrap.testtask.serialization.ResponseDeserializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads responses to single emails with the Jackson streaming parser, used by {@link ResponseMode#STREAMING}
+ * and {@link ResponseMode#STATUS_ONLY}. Produces the same responses as binding them by databind,
+ * see {@link ResponseDeserializer}.
+ */
+final class ResponseReader {
+
+    private ResponseReader() {
+    }
+
+    /**
+     * @param statusCode the HTTP status code of the response
+     * @param body       the HTTP response body
+     * @return {@link SuccessResponse} for a {@code 200} response, otherwise {@link io.mailtrap.testtask.response.FailureResponse}
+     * @throws IOException if the body can not be read or is not a JSON object
+     */
+    static CommonResponse read(int statusCode, InputStream body) throws IOException {
+        try (JsonParser parser = Mapper.get().getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Response must be a JSON object");
+            }
+            return statusCode == 200 ? ResponseDeserializer.SUCCESS.read(parser) : ResponseDeserializer.FAILURE.read(parser);
+        }
+    }
+
+    /**
+     * @return response to a {@code 200} response whose body has not been read
+     */
+    static SuccessResponse success() {
+        var response = new SuccessResponse();
+        response.setSuccess(true);
+        return response;
+    }
+
+    /**
+     * Reads the rest of the body without keeping it, so the connection can be reused for the next request.
+     *
+     * @param body the HTTP response body, may be {@code null}
+     * @throws IOException if the body can not be read
+     */
+    static void discard(InputStream body) throws IOException {
+        if (body == null) {
+            return;
+        }
+        try (body) {
+            while (body.skip(Long.MAX_VALUE) > 0 || body.read() != -1) {
+                // skip returns 0 before the end of the stream if no bytes are available yet
+            }
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package io.mailtrap.testtask.client;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Defines when and how often a failed send is attempted again.
+ * <p>
+ * Delays grow exponentially from {@link #initialBackoff} by {@link #multiplier} up to {@link #maxBackoff},
+ * and a random part of each delay ({@link #jitter}) is subtracted so that clients failed at the same moment
+ * do not retry at the same moment.
+ * <p>
+ * All attempts of one send carry the same idempotency key in the {@link #idempotencyKeyHeader} header,
+ * so a retry after a timeout is not treated as a new email.
+ */
+@Getter
+@Builder
+public class RetryPolicy {
+
+    private static final RetryPolicy NONE = RetryPolicy.builder().maxAttempts(1).build();
+
+    /**
+     * Maximum number of attempts, including the first one
+     */
+    @Builder.Default
+    private final int maxAttempts = 3;
+
+    @Builder.Default
+    private final Duration initialBackoff = Duration.ofMillis(200);
+
+    @Builder.Default
+    private final Duration maxBackoff = Duration.ofSeconds(10);
+
+    @Builder.Default
+    private final double multiplier = 2;
+
+    /**
+     * Fraction of the delay, from 0 to 1, which is randomized
+     */
+    @Builder.Default
+    private final double jitter = 0.5;
+
+    /**
+     * HTTP status codes of the responses which are retried
+     */
+    @Builder.Default
+    private final Set<Integer> retryableStatuses = Set.of(500, 502, 503, 504);
+
+    /**
+     * Decides which errors of the HTTP call are retried. By default, all I/O errors including timeouts are retried
+     */
+    @Builder.Default
+    private final Predicate<Throwable> retryableError = error -> error instanceof IOException;
+
+    /**
+     * Header the idempotency key is sent in, the key is not sent when {@code null}
+     */
+    @Builder.Default
+    private final String idempotencyKeyHeader = "Idempotency-Key";
+
+    RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double multiplier, double jitter,
+                Set<Integer> retryableStatuses, Predicate<Throwable> retryableError, String idempotencyKeyHeader) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        if (initialBackoff.isNegative() || maxBackoff.isNegative()) {
+            throw new IllegalArgumentException("initialBackoff and maxBackoff must not be negative");
+        }
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.retryableStatuses = retryableStatuses;
+        this.retryableError = retryableError;
+        this.idempotencyKeyHeader = idempotencyKeyHeader;
+    }
+
+    /**
+     * @return policy which never retries
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * @return true if the policy allows more than one attempt
+     */
+    public boolean isEnabled() {
+        return maxAttempts > 1;
+    }
+
+    /**
+     * @param statusCode HTTP status code of the response
+     * @param attempt    number of the attempt the response has been received for, starting from 1
+     * @return true if the request has to be sent again
+     */
+    public boolean shouldRetry(int statusCode, int attempt) {
+        return attempt < maxAttempts && retryableStatuses.contains(statusCode);
+    }
+
+    /**
+     * @param error   error the HTTP call has failed with
+     * @param attempt number of the failed attempt, starting from 1
+     * @return true if the request has to be sent again
+     */
+    public boolean shouldRetry(Throwable error, int attempt) {
+        return attempt < maxAttempts && retryableError.test(error);
+    }
+
+    /**
+     * Calculates the delay before the next attempt.
+     *
+     * @param attempt number of the failed attempt, starting from 1
+     * @return delay in nanoseconds
+     */
+    public long backoffNanos(int attempt) {
+        double backoff = Math.min(initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1), maxBackoff.toNanos());
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+}
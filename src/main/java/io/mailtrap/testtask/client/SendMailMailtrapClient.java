@@ -2,25 +2,47 @@ package io.mailtrap.testtask.client;
 
 import io.mailtrap.testtask.Mapper;
 import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.exception.CircuitBreakerOpenException;
+import io.mailtrap.testtask.exception.ConcurrencyLimitExceededException;
 import io.mailtrap.testtask.exception.InvalidRequestBodyException;
 import io.mailtrap.testtask.exception.JsonException;
+import io.mailtrap.testtask.metrics.SendMetrics;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.BatchMail;
 import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.request.MailTemplate;
+import io.mailtrap.testtask.response.BatchResponse;
 import io.mailtrap.testtask.response.CommonResponse;
 import io.mailtrap.testtask.response.FailureResponse;
 import io.mailtrap.testtask.response.SuccessResponse;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
+import io.mailtrap.testtask.validation.MailValidator;
+import lombok.NonNull;
 import lombok.Setter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 import static io.mailtrap.testtask.Constants.*;
 
@@ -29,38 +51,219 @@ import static io.mailtrap.testtask.Constants.*;
  */
 public class SendMailMailtrapClient implements MailtrapClient {
 
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String GZIP = "gzip";
+
     @Setter
-    private boolean sandboxEnvironment = true;
+    private volatile boolean sandboxEnvironment = true;
 
     private final String token;
     private final int inboxId;
 
     /**
-     * Setter for case when client would like to customize httpClient - set timeout, follow redirects, etc
+     * Setter for case when client would like to customize httpClient - set timeout, follow redirects, etc.
+     * Prefer {@link #setTransportConfig(TransportConfig)} for the common settings.
+     * With the default transport it is {@code null}, and the shared HTTP client is created on the first send
+     */
+    @Setter
+    private volatile HttpClient httpClient;
+
+    /**
+     * Timeout of receiving the response headers of each request, no timeout when {@code null}
+     */
+    private volatile Duration requestTimeout;
+
+    /**
+     * Executor of {@link #sendAsync(CommonMail)}, {@link ForkJoinPool#commonPool()} unless set by {@link TransportConfig}
+     */
+    private volatile Executor defaultExecutor;
+
+    /**
+     * Validator of mails before sending, by default the {@link MailValidator#fast() fast} one.
+     * Set {@link MailValidator#jakarta()} to use the generic Jakarta Bean Validation provider instead
+     */
+    @Setter
+    @NonNull
+    private MailValidator mailValidator = MailValidator.fast();
+
+    /**
+     * Estimated body size in bytes from which mails are serialized straight into the request stream in chunks,
+     * instead of being serialized into a byte array first
+     */
+    @Setter
+    private long streamingThreshold = 256 * 1024;
+
+    /**
+     * Estimated body size in bytes from which request bodies are gzip-compressed while being streamed.
+     * Compression is disabled when negative, which is the default
+     */
+    @Setter
+    private long compressionThreshold = -1;
+
+    /**
+     * Base URL replacing {@link io.mailtrap.testtask.Constants#SANDBOX_URL} and {@link io.mailtrap.testtask.Constants#PRODUCTION_URL},
+     * e.g. to send through a proxy or to a local stub. The default URLs are used when {@code null}
+     */
+    @Setter
+    private volatile String baseUrl;
+
+    /**
+     * Cached endpoint URI and headers, rebuilt when {@link #sandboxEnvironment} or {@link #baseUrl} changes
+     */
+    private volatile RequestTemplate requestTemplate;
+
+    /**
+     * Optional client-side rate limiter, shared by all threads using this client. No limit is applied when {@code null}
      */
     @Setter
-    private HttpClient httpClient;
-    private final Validator validator;
+    private RateLimiter rateLimiter;
 
     /**
-     * Constructs a new Client.
+     * How responses to single emails are read, by default with the Jackson streaming parser
+     */
+    @Setter
+    @NonNull
+    private volatile ResponseMode responseMode = ResponseMode.STREAMING;
+
+    /**
+     * Optional circuit breaker failing sends fast while Mailtrap API is failing or slow, shared by all threads using
+     * this client. Requests are always sent when {@code null}
+     */
+    @Setter
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Optional limit of concurrent requests adapting to the latency of Mailtrap API, shared by all threads using
+     * this client. No limit is applied when {@code null}
+     */
+    @Setter
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Optional cache suppressing duplicate sends of the same email, shared by all threads using this client.
+     * Every email is sent when {@code null}
+     */
+    @Setter
+    private DedupCache dedupCache;
+
+    /**
+     * Policy of retrying failed sends, by default sends are never retried
+     */
+    @Setter
+    @NonNull
+    private RetryPolicy retryPolicy = RetryPolicy.none();
+
+    /**
+     * Listener of the send path, by default ignoring all events
+     */
+    @Setter
+    @NonNull
+    private SendMetrics metrics = SendMetrics.noop();
+
+    /**
+     * Constructs a new Client with the default HTTP transport, sharing its HTTP client with other such clients.
      *
      * @param token   the authentication token for accessing the Mailtrap API
      * @param inboxId the ID of the inbox to which emails will be sent. Required to use in sandbox environment
      */
     public SendMailMailtrapClient(String token, int inboxId) {
+        this(token, inboxId, TransportConfig.defaults());
+    }
+
+    /**
+     * Constructs a new Client with the given HTTP transport.
+     *
+     * @param token           the authentication token for accessing the Mailtrap API
+     * @param inboxId         the ID of the inbox to which emails will be sent. Required to use in sandbox environment
+     * @param transportConfig configuration of the HTTP client
+     */
+    public SendMailMailtrapClient(String token, int inboxId, TransportConfig transportConfig) {
         this.token = token;
         this.inboxId = inboxId;
-        this.httpClient = HttpClient.newBuilder().build();
+        this.httpClient = transportConfig == TransportConfig.defaults() ? null : transportConfig.httpClient();
+        this.requestTimeout = transportConfig.getRequestTimeout();
+        this.defaultExecutor = transportConfig.defaultExecutor();
+    }
 
-        // Wrapped into try-with-resources to ensure that factory's resources are properly closed
-        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
-            this.validator = factory.getValidator();
+    /**
+     * Constructs a client sharing the HTTP client and the validator with other clients, used by {@link MailtrapClientRegistry}.
+     *
+     * @param token           the authentication token for accessing the Mailtrap API
+     * @param inboxId         the ID of the inbox to which emails will be sent. Required to use in sandbox environment
+     * @param httpClient      shared HTTP client
+     * @param requestTimeout  timeout of receiving the response headers, no timeout when {@code null}
+     * @param defaultExecutor executor of {@link #sendAsync(CommonMail)}
+     * @param mailValidator   shared validator
+     */
+    SendMailMailtrapClient(String token, int inboxId, HttpClient httpClient, Duration requestTimeout,
+                           Executor defaultExecutor, MailValidator mailValidator) {
+        this.token = token;
+        this.inboxId = inboxId;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.defaultExecutor = defaultExecutor;
+        this.mailValidator = mailValidator;
+    }
+
+    /**
+     * Replaces the HTTP client with one built from the configuration, or with the shared one for the default configuration.
+     * Connections of the previous HTTP client are not reused.
+     *
+     * @param transportConfig configuration of the HTTP client
+     */
+    public void setTransportConfig(@NonNull TransportConfig transportConfig) {
+        this.httpClient = transportConfig == TransportConfig.defaults() ? null : transportConfig.httpClient();
+        this.requestTimeout = transportConfig.getRequestTimeout();
+        this.defaultExecutor = transportConfig.defaultExecutor();
+    }
+
+    /**
+     * Opens connections to Mailtrap API ahead of the first sends, so they do not pay for the TCP and TLS handshakes.
+     * Connects to {@link #baseUrl} if it is set, otherwise to both the sandbox and the production hosts.
+     *
+     * @see #warmUp(int)
+     */
+    public void warmUp() {
+        warmUp(1);
+    }
+
+    /**
+     * Opens connections to Mailtrap API ahead of the first sends, blocking until they are established.
+     * With HTTP/2 one connection per host is enough, with HTTP/1.1 as many connections are opened
+     * as the number of requests expected to be sent concurrently.
+     *
+     * @param connectionsPerHost number of concurrent requests sent to each host
+     * @throws BaseMailtrapException if a connection can not be established
+     */
+    public void warmUp(int connectionsPerHost) {
+        var url = baseUrl;
+        List<String> hosts = url != null ? List.of(url) : List.of(SANDBOX_URL, PRODUCTION_URL);
+
+        var futures = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+        for (String host : hosts) {
+            var builder = HttpRequest.newBuilder(URI.create(host + "/")).method("HEAD", HttpRequest.BodyPublishers.noBody());
+            if (requestTimeout != null) {
+                builder.timeout(requestTimeout);
+            }
+            var request = builder.build();
+            for (int i = 0; i < connectionsPerHost; i++) {
+                futures.add(httpClient().sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw toMailtrapException(unwrap(e));
         }
     }
 
     /**
-     * Sends an email using Mailtrap API.
+     * Sends an email using Mailtrap API. If a {@link #dedupCache} is set and the same email has been sent during its window,
+     * the response to that send is returned instead.
      *
      * @param mail the email to be sent
      * @return the response from the Mailtrap API
@@ -69,25 +272,545 @@ public class SendMailMailtrapClient implements MailtrapClient {
      */
     @Override
     public CommonResponse send(CommonMail mail) {
+        var cache = dedupCache;
+        if (cache == null) {
+            return execute(prepareRequest(mail), SuccessResponse.class);
+        }
+        validate(mail);
+        return cache.send(cache.fingerprint(mail), () -> execute(serializeRequest(mail), SuccessResponse.class), metrics);
+    }
+
+    /**
+     * Sends an email rendered from the template, serializing only the recipients and the variable values.
+     *
+     * @param template  template of the email
+     * @param to        recipients of the email
+     * @param variables values of the template placeholders
+     * @return the response from the Mailtrap API
+     * @throws InvalidRequestBodyException if the email is invalid or a placeholder has no value or an empty one
+     * @throws BaseMailtrapException       if an error occurs while sending the API request
+     */
+    public CommonResponse send(MailTemplate template, List<Address> to, Map<String, String> variables) {
+        return execute(prepareRequest(template, to, variables), SuccessResponse.class);
+    }
+
+    /**
+     * Sends an email rendered from the template without blocking the calling thread.
+     *
+     * @param template  template of the email
+     * @param to        recipients of the email
+     * @param variables values of the template placeholders
+     * @param executor  executor used for validation, rendering and response parsing
+     * @return future completed with the response from the Mailtrap API
+     * @see #send(MailTemplate, List, Map)
+     */
+    public CompletableFuture<CommonResponse> sendAsync(MailTemplate template, List<Address> to, Map<String, String> variables,
+                                                       Executor executor) {
+        return CompletableFuture
+                .supplyAsync(() -> prepareRequest(template, to, variables), executor)
+                .thenCompose(request -> executeAsync(request, SuccessResponse.class, executor, 1, 0));
+    }
+
+    /**
+     * Sends up to {@value io.mailtrap.testtask.Constants#BATCH_MAX_REQUESTS} emails in one request to the batch endpoint of Mailtrap API.
+     *
+     * @param batch the emails to be sent
+     * @return {@link BatchResponse} holding a response for each email in the order of the requests,
+     * or {@link FailureResponse} if the whole batch has been rejected
+     * @throws InvalidRequestBodyException if the batch or any of its emails is invalid
+     * @throws BaseMailtrapException       if an error occurs while sending the API request
+     */
+    public CommonResponse sendBatch(BatchMail batch) {
+        return execute(prepareRequest(batch), BatchResponse.class);
+    }
+
+    /**
+     * Sends a batch of emails without blocking the calling thread.
+     *
+     * @param batch    the emails to be sent
+     * @param executor executor used for validation, serialization and response parsing
+     * @return future completed with the response from the Mailtrap API
+     * @see #sendBatch(BatchMail)
+     */
+    public CompletableFuture<CommonResponse> sendBatchAsync(BatchMail batch, Executor executor) {
+        return CompletableFuture
+                .supplyAsync(() -> prepareRequest(batch), executor)
+                .thenCompose(request -> executeAsync(request, BatchResponse.class, executor, 1, 0));
+    }
+
+    /**
+     * Sends a batch of emails which have already been validated one by one, without validating them again.
+     *
+     * @param batch    up to {@value io.mailtrap.testtask.Constants#BATCH_MAX_REQUESTS} validated emails
+     * @param executor executor used for serialization and response parsing
+     * @return future completed with the response from the Mailtrap API
+     * @see #sendBatchAsync(BatchMail, Executor)
+     */
+    CompletableFuture<CommonResponse> sendValidatedBatchAsync(BatchMail batch, Executor executor) {
+        return CompletableFuture
+                .supplyAsync(() -> serializeRequest(batch), executor)
+                .thenCompose(request -> executeAsync(request, BatchResponse.class, executor, 1, 0));
+    }
+
+    /**
+     * @return executor of {@link #sendAsync(CommonMail)}
+     */
+    Executor defaultExecutor() {
+        return defaultExecutor;
+    }
+
+    /**
+     * Validates and serializes the email, recording the time of both.
+     *
+     * @param mail the email to be sent
+     * @return the HTTP request
+     * @throws InvalidRequestBodyException if the request object is invalid
+     */
+    private HttpRequest prepareRequest(CommonMail mail) {
+        validate(mail);
+        return serializeRequest(mail);
+    }
+
+    /**
+     * Validates the email, recording the time.
+     *
+     * @param mail the email to be sent
+     * @throws InvalidRequestBodyException if the request object is invalid
+     */
+    private void validate(CommonMail mail) {
+        long start = System.nanoTime();
         validateRequestBodyOrThrowException(mail);
+        metrics.validated(System.nanoTime() - start);
+    }
+
+    /**
+     * Serializes the validated email, recording the time.
+     *
+     * @param mail the email to be sent, already validated
+     * @return the HTTP request
+     */
+    private HttpRequest serializeRequest(CommonMail mail) {
+        long start = System.nanoTime();
+        var body = MailBodyPublishers.of(mail, streamingThreshold, compressionThreshold);
+        metrics.serialized(System.nanoTime() - start, body.contentLength());
+        return buildRequest(requestTemplate().newSendRequest(), body);
+    }
+
+    /**
+     * Validates the email of the template and renders it, recording the time of both.
+     * Validation does not depend on the size of the constant parts, since only their presence is checked.
+     *
+     * @param template  template of the email
+     * @param to        recipients of the email
+     * @param variables values of the template placeholders
+     * @return the HTTP request
+     * @throws InvalidRequestBodyException if the email is invalid or a placeholder has no value or an empty one
+     */
+    private HttpRequest prepareRequest(MailTemplate template, List<Address> to, Map<String, String> variables) {
+        long start = System.nanoTime();
+        if (template == null) {
+            throw new InvalidRequestBodyException("Mail must not be null");
+        }
+        validateRequestBodyOrThrowException(template.toMail(to));
+        long validated = System.nanoTime();
+        metrics.validated(validated - start);
+
+        var body = MailBodyPublishers.ofFragments(template.render(to, variables), compressionThreshold);
+        metrics.serialized(System.nanoTime() - validated, body.contentLength());
+        return buildRequest(requestTemplate().newSendRequest(), body);
+    }
+
+    /**
+     * Validates and serializes the batch of emails, recording the time of both.
+     *
+     * @param batch the emails to be sent
+     * @return the HTTP request
+     * @throws InvalidRequestBodyException if the batch or any of its emails is invalid
+     */
+    private HttpRequest prepareRequest(BatchMail batch) {
+        long start = System.nanoTime();
+        validateBatchOrThrowException(batch);
+        metrics.validated(System.nanoTime() - start);
+        return serializeRequest(batch);
+    }
+
+    /**
+     * Serializes the validated batch, recording the time.
+     *
+     * @param batch the emails to be sent, already validated
+     * @return the HTTP request
+     */
+    private HttpRequest serializeRequest(BatchMail batch) {
+        long start = System.nanoTime();
+        var body = MailBodyPublishers.of(batch, streamingThreshold, compressionThreshold);
+        metrics.serialized(System.nanoTime() - start, body.contentLength());
+        return buildRequest(requestTemplate().newBatchRequest(), body);
+    }
 
-        var uri = buildURI();
-        var request = buildRequest(mail, uri);
+    /**
+     * Sends the request, waiting for rate limiter permits and retrying it according to {@link #retryPolicy}.
+     *
+     * @param request     the HTTP request
+     * @param successType type a successful response is parsed to
+     * @return the parsed response
+     * @throws CircuitBreakerOpenException        if the {@link #circuitBreaker} is open
+     * @throws ConcurrencyLimitExceededException if the {@link #concurrencyLimiter} is reached
+     * @throws BaseMailtrapException              if an error occurs while sending the API request
+     */
+    private CommonResponse execute(HttpRequest request, Class<? extends CommonResponse> successType) {
         try {
-            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-            return handleResponse(response);
+            // throttled resends are limited by the rate limiter and do not use up the attempts of the retry policy
+            int attempt = 1;
+            int throttled = 0;
+            while (true) {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+
+                long permission = acquirePermits();
+                HttpResponse<InputStream> response;
+                long start = System.nanoTime();
+                metrics.requestStarted();
+                try {
+                    // the response is returned as soon as its headers are received, the body is read while parsing
+                    response = httpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    long elapsed = System.nanoTime() - start;
+                    metrics.firstByte(elapsed);
+                    releasePermits(permission, elapsed, isServerError(response.statusCode()));
+                } catch (IOException | InterruptedException e) {
+                    long elapsed = System.nanoTime() - start;
+                    metrics.failed(elapsed);
+                    if (e instanceof InterruptedException) {
+                        abandonPermits(permission);
+                    } else {
+                        releasePermits(permission, elapsed, true);
+                    }
+                    if (e instanceof InterruptedException || !retryPolicy.shouldRetry(e, attempt)) {
+                        throw e;
+                    }
+                    metrics.retried(attempt + throttled);
+                    TimeUnit.NANOSECONDS.sleep(retryPolicy.backoffNanos(attempt));
+                    attempt++;
+                    continue;
+                } catch (RuntimeException e) {
+                    long elapsed = System.nanoTime() - start;
+                    metrics.failed(elapsed);
+                    releasePermits(permission, elapsed, true);
+                    throw e;
+                }
+
+                boolean resent = shouldResendThrottled(response.statusCode(), response.headers(), throttled + 1);
+                boolean retried = !resent && retryPolicy.shouldRetry(response.statusCode(), attempt);
+                if (!resent && !retried) {
+                    return handleResponse(response.statusCode(), response.headers(), response.body(), successType, start);
+                }
+
+                if (response.body() != null) {
+                    response.body().close();
+                }
+                metrics.responded(response.statusCode(), System.nanoTime() - start);
+                metrics.retried(attempt + throttled);
+                if (retried) {
+                    TimeUnit.NANOSECONDS.sleep(retryPolicy.backoffNanos(attempt));
+                    attempt++;
+                } else {
+                    throttled++;
+                }
+            }
         } catch (InterruptedException | IOException e) {
             throw new BaseMailtrapException("An error has occurred while sending request", e);
         }
     }
 
+    /**
+     * Sends an email using Mailtrap API without blocking the calling thread.
+     * Validation, serialization and response parsing are performed on the {@link ForkJoinPool#commonPool()},
+     * or on virtual threads if enabled by {@link TransportConfig#isVirtualThreads()}.
+     *
+     * @param mail the email to be sent
+     * @return future completed with the response from the Mailtrap API
+     * @see #sendAsync(CommonMail, Executor)
+     */
+    @Override
+    public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+        return sendAsync(mail, defaultExecutor);
+    }
+
+    /**
+     * Sends an email using Mailtrap API without blocking the calling thread.
+     * <p>
+     * The returned future is completed exceptionally with {@link InvalidRequestBodyException} if the request
+     * object is invalid, with {@link JsonException} if the response can not be parsed
+     * and with {@link BaseMailtrapException} if an error occurs while sending the API request.
+     *
+     * @param mail     the email to be sent
+     * @param executor executor used for validation, serialization and response parsing
+     * @return future completed with the response from the Mailtrap API
+     */
+    @Override
+    public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+        var cache = dedupCache;
+        if (cache == null) {
+            return CompletableFuture
+                    .supplyAsync(() -> prepareRequest(mail), executor)
+                    .thenCompose(request -> executeAsync(request, SuccessResponse.class, executor, 1, 0));
+        }
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    validate(mail);
+                    return cache.fingerprint(mail);
+                }, executor)
+                .thenCompose(fingerprint -> cache.sendAsync(fingerprint,
+                        () -> executeAsync(serializeRequest(mail), SuccessResponse.class, executor, 1, 0), metrics));
+    }
+
+    /**
+     * Sends the request asynchronously. Waiting for a rate limiter permit and retry backoffs are scheduled
+     * on a timer instead of blocking a thread.
+     *
+     * @param request     the HTTP request
+     * @param successType type a successful response is parsed to
+     * @param executor    executor used for response parsing
+     * @param attempt     number of the current attempt of the retry policy, starting from 1
+     * @param throttled   number of the throttled responses received before, which do not count as attempts
+     * @return future completed with the parsed response
+     */
+    private CompletableFuture<CommonResponse> executeAsync(HttpRequest request, Class<? extends CommonResponse> successType,
+                                                           Executor executor, int attempt, int throttled) {
+        long[] start = new long[1];
+        long[] permission = new long[1];
+        return delay(rateLimiter == null ? 0 : rateLimiter.reserve(), executor)
+                .thenCompose(ignored -> {
+                    permission[0] = acquirePermits();
+                    start[0] = System.nanoTime();
+                    metrics.requestStarted();
+                    return httpClient().sendAsync(request, responseInfo -> {
+                        metrics.firstByte(System.nanoTime() - start[0]);
+                        if (isStatusOnly(responseInfo.statusCode(), successType)) {
+                            return HttpResponse.BodySubscribers.replacing(null);
+                        }
+                        return HttpResponse.BodyHandlers.ofByteArray().apply(responseInfo);
+                    });
+                })
+                .handleAsync((response, error) -> {
+                    Throwable cause = error == null ? null : unwrap(error);
+                    if (isRejection(cause)) {
+                        return CompletableFuture.<CommonResponse>failedFuture(cause);
+                    }
+                    long elapsed = System.nanoTime() - start[0];
+                    releasePermits(permission[0], elapsed, error != null || isServerError(response.statusCode()));
+                    if (error != null) {
+                        metrics.failed(elapsed);
+                        if (retryPolicy.shouldRetry(cause, attempt)) {
+                            metrics.retried(attempt + throttled);
+                            return retryAsync(request, successType, executor, attempt, throttled);
+                        }
+                        return CompletableFuture.<CommonResponse>failedFuture(toMailtrapException(cause));
+                    }
+
+                    metrics.responded(response.statusCode(), elapsed);
+                    if (shouldResendThrottled(response.statusCode(), response.headers(), throttled + 1)) {
+                        metrics.retried(attempt + throttled);
+                        return executeAsync(request, successType, executor, attempt, throttled + 1);
+                    }
+                    if (retryPolicy.shouldRetry(response.statusCode(), attempt)) {
+                        metrics.retried(attempt + throttled);
+                        return retryAsync(request, successType, executor, attempt, throttled);
+                    }
+
+                    long parseStart = System.nanoTime();
+                    var parsed = handleResponse(response.statusCode(), response.headers(), toInputStream(response.body()), successType);
+                    metrics.parsed(System.nanoTime() - parseStart);
+                    return CompletableFuture.completedFuture(parsed);
+                }, executor)
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<CommonResponse> retryAsync(HttpRequest request, Class<? extends CommonResponse> successType,
+                                                         Executor executor, int failedAttempt, int throttled) {
+        return delay(retryPolicy.backoffNanos(failedAttempt), executor)
+                .thenCompose(ignored -> executeAsync(request, successType, executor, failedAttempt + 1, throttled));
+    }
+
+    /**
+     * @return the HTTP client, the shared one of the default transport unless another one has been set
+     */
+    private HttpClient httpClient() {
+        var client = httpClient;
+        return client != null ? client : TransportConfig.defaults().httpClient();
+    }
+
+    /**
+     * Takes the permits of the {@link #circuitBreaker} and the {@link #concurrencyLimiter} for one attempt.
+     * Every successful call has to be followed by {@link #releasePermits(long, long, boolean)} or
+     * {@link #abandonPermits(long)} with the returned permission.
+     *
+     * @return permission of the circuit breaker, 0 if there is none
+     * @throws CircuitBreakerOpenException        if the circuit breaker is open
+     * @throws ConcurrencyLimitExceededException if the concurrency limit is reached
+     */
+    private long acquirePermits() {
+        long permission = circuitBreaker == null ? 0 : circuitBreaker.tryAcquirePermission();
+        if (permission == CircuitBreaker.REJECTED) {
+            metrics.rejected();
+            throw new CircuitBreakerOpenException("Circuit breaker is open, request to Mailtrap API has not been sent");
+        }
+        if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onIgnored(permission);
+            }
+            metrics.rejected();
+            throw new ConcurrencyLimitExceededException("Limit of " + concurrencyLimiter.getLimit()
+                    + " concurrent requests to Mailtrap API is reached, request has not been sent");
+        }
+        return permission;
+    }
+
+    /**
+     * Reports the outcome of an attempt to the {@link #circuitBreaker} and the {@link #concurrencyLimiter}.
+     *
+     * @param permission permission returned by {@link #acquirePermits()}
+     * @param nanos      time from sending the request until the response headers or the failure
+     * @param failed     true if the request has been completed without a response or with a server error
+     */
+    private void releasePermits(long permission, long nanos, boolean failed) {
+        if (concurrencyLimiter != null) {
+            if (failed) {
+                concurrencyLimiter.onDropped();
+            } else {
+                concurrencyLimiter.onSuccess(nanos);
+            }
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.onResult(permission, nanos, failed);
+        }
+    }
+
+    /**
+     * Returns the permits of an attempt which has not been completed, without reporting any outcome
+     */
+    private void abandonPermits(long permission) {
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.onIgnored();
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.onIgnored(permission);
+        }
+    }
+
+    private static boolean isServerError(int statusCode) {
+        return statusCode >= 500;
+    }
+
+    private static boolean isRejection(Throwable error) {
+        return error instanceof CircuitBreakerOpenException || error instanceof ConcurrencyLimitExceededException;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+    }
+
+    /**
+     * Wraps transport errors of an asynchronous call the same way {@link #send(CommonMail)} does.
+     *
+     * @param cause error the HTTP call has been completed with
+     * @return the error itself if it is already a {@link BaseMailtrapException}, otherwise a wrapping one
+     */
+    private static BaseMailtrapException toMailtrapException(Throwable cause) {
+        if (cause instanceof BaseMailtrapException) {
+            return (BaseMailtrapException) cause;
+        }
+        return new BaseMailtrapException("An error has occurred while sending request", cause);
+    }
+
+    private static InputStream toInputStream(byte[] body) {
+        return body == null ? null : new ByteArrayInputStream(body);
+    }
+
+    /**
+     * Generates a key identifying all attempts of one send, if {@link #retryPolicy} is enabled.
+     *
+     * @return the idempotency key or {@code null} if requests are never retried
+     */
+    private String newIdempotencyKey() {
+        return retryPolicy.isEnabled() && retryPolicy.getIdempotencyKeyHeader() != null
+                ? UUID.randomUUID().toString()
+                : null;
+    }
+
+    /**
+     * Creates a future completed on the executor after the delay, without occupying any thread while waiting.
+     *
+     * @param delayNanos delay in nanoseconds, the future is completed right away if not positive
+     * @param executor   executor the future is completed on
+     * @return future completed after the delay
+     */
+    private static CompletableFuture<Void> delay(long delayNanos, Executor executor) {
+        if (delayNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, executor));
+    }
+
+    /**
+     * Reports the response status to the {@link #rateLimiter} and decides whether a throttled request has to be sent again.
+     * A {@code 429 Too Many Requests} response throttles the whole client for the {@code Retry-After} period,
+     * so the request is sent again once the limiter lets it through instead of failing right away.
+     *
+     * @param statusCode the HTTP status code of the response
+     * @param headers    the HTTP response headers
+     * @param throttled  number of the throttled responses to the request if this one is throttled too, starting from 1
+     * @return true if the request has to be sent again
+     */
+    private boolean shouldResendThrottled(int statusCode, HttpHeaders headers, int throttled) {
+        if (rateLimiter == null) {
+            return false;
+        }
+
+        if (statusCode != TOO_MANY_REQUESTS) {
+            rateLimiter.onAccepted();
+            return false;
+        }
+
+        rateLimiter.throttle(retryAfter(headers));
+        return throttled < rateLimiter.getMaxThrottledAttempts();
+    }
+
+    /**
+     * Parses the {@code Retry-After} header, which holds either a number of seconds or an HTTP date.
+     *
+     * @param headers the HTTP response headers
+     * @return time to wait before the next request, {@link #DEFAULT_RETRY_AFTER} if the header is absent or malformed
+     */
+    private static Duration retryAfter(HttpHeaders headers) {
+        var value = headers == null ? null : headers.firstValue(RETRY_AFTER_HEADER).orElse(null);
+        if (value == null || value.isBlank()) {
+            return DEFAULT_RETRY_AFTER;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                var retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                var wait = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (DateTimeParseException ignored) {
+                return DEFAULT_RETRY_AFTER;
+            }
+        }
+    }
+
     /**
      * Validates the request body before sending a request to Mailtrap API.
      *
      * @param mail request body
      * @throws InvalidRequestBodyException if there are violations error validating the body
      */
-    private void validateRequestBodyOrThrowException(CommonMail mail) {
+    void validateRequestBodyOrThrowException(CommonMail mail) {
         if (mail == null) {
             throw new InvalidRequestBodyException("Mail must not be null");
         }
@@ -96,31 +819,107 @@ public class SendMailMailtrapClient implements MailtrapClient {
             throw new InvalidRequestBodyException("Mail text or html or both must not be null or empty");
         }
 
-        String violations = validator.validate(mail).stream()
-                .map(violation -> violation.getPropertyPath().toString() + "=" + violation.getMessage())
-                .collect(Collectors.joining("; "));
-
-        if (!violations.isEmpty()) {
+        String violations = mailValidator.validate(mail);
+        if (violations != null) {
             throw new InvalidRequestBodyException("Invalid request body. Violations: " + violations);
         }
     }
 
     /**
-     * Handles the HTTP response from Mailtrap API.
+     * Validates the batch and each of its emails before sending a request to Mailtrap API.
+     *
+     * @param batch request body
+     * @throws InvalidRequestBodyException if the batch is empty, too large or any of its emails is invalid
+     */
+    private void validateBatchOrThrowException(BatchMail batch) {
+        if (batch == null || batch.getRequests() == null || batch.getRequests().isEmpty()) {
+            throw new InvalidRequestBodyException("Batch requests must not be null or empty");
+        }
+
+        if (batch.getRequests().size() > BATCH_MAX_REQUESTS) {
+            throw new InvalidRequestBodyException("Batch must not contain more than " + BATCH_MAX_REQUESTS + " requests");
+        }
+
+        int index = 0;
+        for (CommonMail mail : batch.getRequests()) {
+            try {
+                validateRequestBodyOrThrowException(mail);
+            } catch (InvalidRequestBodyException e) {
+                throw new InvalidRequestBodyException("Invalid batch request " + index + ". " + e.getMessage());
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Handles the HTTP response from Mailtrap API to a single email.
      *
-     * @param response the HTTP response
+     * @param statusCode   the HTTP status code of the response
+     * @param responseBody the HTTP response body
      * @return the parsed response object
      * @throws BaseMailtrapException if response body is null
      * @throws JsonException         if an error occurs while parsing the response
      */
-    private CommonResponse handleResponse(HttpResponse<InputStream> response) {
-        try (InputStream body = response.body()) {
-            if (body == null) {
+    CommonResponse handleResponse(int statusCode, InputStream responseBody) {
+        return handleResponse(statusCode, null, responseBody, SuccessResponse.class);
+    }
+
+    /**
+     * Handles the HTTP response of a blocking send, reading its body while parsing.
+     *
+     * @param requestStart {@link System#nanoTime()} when the request has been sent
+     * @see #handleResponse(int, HttpHeaders, InputStream, Class)
+     */
+    private CommonResponse handleResponse(int statusCode, HttpHeaders headers, InputStream responseBody,
+                                          Class<? extends CommonResponse> successType, long requestStart) {
+        long parseStart = System.nanoTime();
+        try {
+            var response = handleResponse(statusCode, headers, responseBody, successType);
+            long end = System.nanoTime();
+            metrics.parsed(end - parseStart);
+            metrics.responded(statusCode, end - requestStart);
+            return response;
+        } catch (RuntimeException e) {
+            metrics.responded(statusCode, System.nanoTime() - requestStart);
+            throw e;
+        }
+    }
+
+    /**
+     * Handles the HTTP response from Mailtrap API, decompressing the body if it is gzip-encoded.
+     * Responses to single emails are read according to the {@link #responseMode}.
+     *
+     * @param statusCode   the HTTP status code of the response
+     * @param headers      the HTTP response headers, {@code null} if not known
+     * @param responseBody the HTTP response body
+     * @param successType  type a successful response is parsed to
+     * @return the parsed response object, holding the status code
+     * @throws BaseMailtrapException if response body is null
+     * @throws JsonException         if an error occurs while parsing the response
+     */
+    private CommonResponse handleResponse(int statusCode, HttpHeaders headers, InputStream responseBody,
+                                          Class<? extends CommonResponse> successType) {
+        CommonResponse response = parseResponse(statusCode, headers, responseBody, successType);
+        response.setStatusCode(statusCode);
+        return response;
+    }
+
+    private CommonResponse parseResponse(int statusCode, HttpHeaders headers, InputStream responseBody,
+                                         Class<? extends CommonResponse> successType) {
+        try (InputStream encoded = responseBody) {
+            if (isStatusOnly(statusCode, successType)) {
+                ResponseReader.discard(encoded);
+                return ResponseReader.success();
+            }
+            if (encoded == null) {
                 throw new BaseMailtrapException("Response body is null");
             }
+            InputStream body = isGzipEncoded(headers) ? new GZIPInputStream(encoded) : encoded;
 
-            if (response.statusCode() == 200) {
-                return Mapper.get().readValue(body, SuccessResponse.class);
+            if (successType == SuccessResponse.class) {
+                return readResponse(statusCode, body);
+            } else if (statusCode == 200) {
+                return Mapper.get().readValue(body, successType);
             } else {
                 return Mapper.get().readValue(body, FailureResponse.class);
             }
@@ -129,34 +928,86 @@ public class SendMailMailtrapClient implements MailtrapClient {
         }
     }
 
+    /**
+     * Reads the response to a single email according to the {@link #responseMode}.
+     */
+    private CommonResponse readResponse(int statusCode, InputStream body) throws IOException {
+        if (responseMode != ResponseMode.BIND) {
+            return ResponseReader.read(statusCode, body);
+        }
+        if (statusCode == 200) {
+            return Mapper.databind().readValue(body, SuccessResponse.class);
+        }
+        return Mapper.databind().readValue(body, FailureResponse.class);
+    }
+
+    /**
+     * @return true if the body of the response does not have to be read, because only its status is kept
+     */
+    private boolean isStatusOnly(int statusCode, Class<? extends CommonResponse> successType) {
+        return statusCode == 200 && successType == SuccessResponse.class && responseMode == ResponseMode.STATUS_ONLY;
+    }
+
+    private static boolean isGzipEncoded(HttpHeaders headers) {
+        return headers != null && headers.firstValue(CONTENT_ENCODING_HEADER).map(GZIP::equalsIgnoreCase).orElse(false);
+    }
+
     /**
      * Builds the HTTP request (headers, maps body, etc.) for sending the email.
      *
-     * @param mail request body
-     * @param uri  the URI of the Mailtrap API send endpoint
+     * @param builder builder from the {@link RequestTemplate} with the endpoint URI and constant headers set
+     * @param body    publisher of the request body
      * @return the HTTP request
      */
-    private HttpRequest buildRequest(CommonMail mail, URI uri) {
-        return HttpRequest.newBuilder()
-                .uri(uri)
-                .header("Accept", "application/json")
-                .header("Content-Type", "application/json; charset=UTF-8")
-                .header("Authorization", "Bearer " + token)
-                .POST(HttpRequest.BodyPublishers.ofString(mail.toJson()))
+    private HttpRequest buildRequest(HttpRequest.Builder builder, HttpRequest.BodyPublisher body) {
+        var idempotencyKey = newIdempotencyKey();
+        if (idempotencyKey != null) {
+            builder.header(retryPolicy.getIdempotencyKeyHeader(), idempotencyKey);
+        }
+        if (MailBodyPublishers.isCompressed(body)) {
+            builder.header(CONTENT_ENCODING_HEADER, GZIP);
+        }
+        var timeout = requestTimeout;
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+        return builder
+                .POST(body)
                 .build();
     }
 
+    /**
+     * Returns the request template for the current environment, building it on the first use after a change.
+     * A template built concurrently with {@link #setSandboxEnvironment(boolean)} is never used for the other environment,
+     * because every template remembers the configuration it has been built for.
+     *
+     * @return the request template
+     */
+    private RequestTemplate requestTemplate() {
+        boolean sandbox = sandboxEnvironment;
+        String url = baseUrl;
+        var template = requestTemplate;
+        if (template == null || !template.isBuiltFor(sandbox, url)) {
+            template = new RequestTemplate(sandbox, url, buildURI(sandbox, url, SEND_ENDPOINT), buildURI(sandbox, url, BATCH_ENDPOINT), token);
+            requestTemplate = template;
+        }
+        return template;
+    }
+
     /**
      * Builds the URI for the Mailtrap API endpoint.
-     * In case {@link #sandboxEnvironment} is true - required to have {@link #inboxId} set.
+     * In case of sandbox environment - required to have {@link #inboxId} set.
      *
+     * @param sandbox  whether the sandbox environment is used
+     * @param baseUrl  base URL overriding the default one, {@code null} to use the default
+     * @param endpoint path of the endpoint
      * @return generated URI of the Mailtrap API endpoint
      * @throws BaseMailtrapException if an error occurs while creating the URI
      */
-    private URI buildURI() {
+    private URI buildURI(boolean sandbox, String baseUrl, String endpoint) {
         try {
-            var url = sandboxEnvironment ? SANDBOX_URL + SEND_ENDPOINT + "/" + inboxId
-                    : PRODUCTION_URL + SEND_ENDPOINT;
+            var url = sandbox ? (baseUrl != null ? baseUrl : SANDBOX_URL) + endpoint + "/" + inboxId
+                    : (baseUrl != null ? baseUrl : PRODUCTION_URL) + endpoint;
             return new URI(url);
         } catch (URISyntaxException e) {
             throw new BaseMailtrapException("An error has occurred while creating URL", e);
@@ -0,0 +1,265 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link Flow.Processor} sending each received email through {@link MailtrapClient#sendAsync(CommonMail, Executor)}
+ * and publishing its {@link SendResult}.
+ * <p>
+ * At most {@code maxInFlight} emails are requested from upstream ahead of the results published downstream: a new
+ * email is requested only when the result of a previous one has been taken by the subscriber. So no more than
+ * {@code maxInFlight} requests are in flight, a slow subscriber slows down the upstream publisher and nothing is ever
+ * buffered without bound. Results are published in the order the sends complete, with {@link SendResult#getIndex()}
+ * holding the position of the email in the upstream sequence.
+ * <p>
+ * A failed send does not fail the stream, its error is held by its result. An error of the upstream publisher is passed
+ * to the subscriber once the results of the emails in flight have been published. Only one subscriber is supported.
+ * Results are published on the thread completing the send or on the thread requesting more of them.
+ */
+public class SendProcessor implements Flow.Processor<CommonMail, SendResult> {
+
+    private final MailtrapClient client;
+    private final int maxInFlight;
+    private final Executor executor;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super SendResult>> downstream = new AtomicReference<>();
+
+    /**
+     * Results of completed sends not yet published downstream
+     */
+    private final Queue<SendResult> completed = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of emails received from upstream which results have not been published yet
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Number of results requested by the subscriber and not yet published
+     */
+    private final AtomicLong demand = new AtomicLong();
+
+    /**
+     * Number of times {@link #drain()} has been called while it was running, only the thread raising it from zero drains
+     */
+    private final AtomicInteger drains = new AtomicInteger();
+
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    /**
+     * Error the subscriber is failed with for breaking the subscription contract
+     */
+    private volatile Throwable subscriptionError;
+
+    /**
+     * Position of the next email in the upstream sequence, only accessed from {@link #onNext(CommonMail)}
+     */
+    private long index;
+
+    /**
+     * Whether the initial emails have been requested from upstream, only accessed from {@link #drain()}
+     */
+    private boolean started;
+
+    /**
+     * Whether the subscriber has been completed or failed, only accessed from {@link #drain()}
+     */
+    private boolean terminated;
+
+    /**
+     * Constructs a new processor using the default executor of the client for validation, serialization and parsing,
+     * see {@link MailtrapClient#sendAsync(CommonMail)}.
+     *
+     * @param client      client used to send each email
+     * @param maxInFlight maximum number of emails requested from upstream and not yet published downstream
+     */
+    public SendProcessor(MailtrapClient client, int maxInFlight) {
+        this(client, maxInFlight, null);
+    }
+
+    /**
+     * Constructs a new processor.
+     *
+     * @param client      client used to send each email
+     * @param maxInFlight maximum number of emails requested from upstream and not yet published downstream
+     * @param executor    executor passed to {@link MailtrapClient#sendAsync(CommonMail, Executor)},
+     *                    {@code null} to use the default executor of the client
+     */
+    public SendProcessor(MailtrapClient client, int maxInFlight, Executor executor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.client = Objects.requireNonNull(client, "client");
+        this.maxInFlight = maxInFlight;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SendResult> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("SendProcessor supports only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new ResultSubscription());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        if (cancelled) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(CommonMail mail) {
+        Objects.requireNonNull(mail, "mail");
+        pending.incrementAndGet();
+        long mailIndex = index++;
+
+        CompletableFuture<CommonResponse> future;
+        try {
+            future = executor == null ? client.sendAsync(mail) : client.sendAsync(mail, executor);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, sendError) -> {
+            completed.add(SendResult.of(mailIndex, mail, response, sendError));
+            drain();
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = Objects.requireNonNull(throwable, "throwable");
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    /**
+     * Publishes completed results as far as the subscriber has requested them, requests as many new emails from upstream
+     * and terminates the subscriber once upstream is done and every result has been published.
+     * Runs on one thread at a time, so the subscriber is never called concurrently.
+     */
+    private void drain() {
+        if (drains.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super SendResult> subscriber = downstream.get();
+            Flow.Subscription subscription = upstream.get();
+            if (subscriptionError != null && !terminated) {
+                terminated = true;
+                completed.clear();
+                subscriber.onError(subscriptionError);
+            } else if (cancelled) {
+                completed.clear();
+            } else if (subscriber != null && subscription != null && !terminated) {
+                if (!started) {
+                    started = true;
+                    subscription.request(maxInFlight);
+                }
+                publish(subscriber, subscription);
+            }
+            missed = drains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void publish(Flow.Subscriber<? super SendResult> subscriber, Flow.Subscription subscription) {
+        long requested = demand.get();
+        long published = 0;
+        SendResult result;
+        while (published < requested && !cancelled && (result = completed.poll()) != null) {
+            pending.decrementAndGet();
+            published++;
+            subscriber.onNext(result);
+        }
+
+        if (published > 0) {
+            if (requested != Long.MAX_VALUE) {
+                demand.addAndGet(-published);
+            }
+            if (!upstreamDone && !cancelled) {
+                subscription.request(published);
+            }
+        }
+
+        // Every onNext has happened before upstreamDone is set, so no more results can arrive once pending reaches zero
+        if (upstreamDone && pending.get() == 0 && !cancelled) {
+            terminated = true;
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    /**
+     * Subscription of the downstream subscriber
+     */
+    private final class ResultSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                subscriptionError = new IllegalArgumentException("Requested number of results must be positive");
+                cancel();
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream.get();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            drain();
+        }
+
+    }
+
+}
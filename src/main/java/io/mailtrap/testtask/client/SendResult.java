@@ -0,0 +1,81 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Outcome of sending a single mail as a part of a bulk operation.
+ * Holds either the response from the Mailtrap API or the error the send has failed with.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class SendResult {
+
+    /**
+     * Zero-based position of the mail in the source sequence, or its sequence number in the outbox
+     */
+    private final long index;
+
+    private final CommonMail mail;
+
+    /**
+     * Response from the Mailtrap API, {@code null} if the send has failed with an error
+     */
+    private final CommonResponse response;
+
+    /**
+     * Error the send has failed with, {@code null} if a response has been received
+     */
+    private final Throwable error;
+
+    /**
+     * @param index    position or sequence number of the mail
+     * @param mail     the sent mail
+     * @param response response from the Mailtrap API, ignored if the error is set
+     * @param error    error the send has failed with, unwrapped from {@link CompletionException}
+     * @return new result
+     */
+    public static SendResult of(long index, CommonMail mail, CommonResponse response, Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return new SendResult(index, mail, error == null ? response : null, error);
+    }
+
+    /**
+     * @return true if Mailtrap API has accepted the mail
+     */
+    public boolean isSuccess() {
+        return response != null && response.isSuccess();
+    }
+
+    /**
+     * @return message ids of the accepted mail or an empty list if the send has failed
+     */
+    public List<String> getMessageIds() {
+        if (response instanceof SuccessResponse && ((SuccessResponse) response).getMessageIds() != null) {
+            return ((SuccessResponse) response).getMessageIds();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return errors returned by Mailtrap API or an empty list if there were none
+     */
+    public List<String> getErrors() {
+        if (response instanceof FailureResponse && ((FailureResponse) response).getErrors() != null) {
+            return ((FailureResponse) response).getErrors();
+        }
+        return Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,229 @@
+package io.mailtrap.testtask.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Body publisher which runs a {@link BodyWriter} and passes what it writes to the HTTP client in fixed-size chunks,
+ * as soon as each chunk is filled. A new chunk is handed over only when the HTTP client has requested it,
+ * so at most {@code chunkSize} bytes per outstanding request are held on the heap instead of the whole body.
+ * <p>
+ * The HTTP client does not report when it is done with a buffer, so chunks are allocated per body rather than pooled.
+ * Serializers push bytes instead of letting them be pulled, so the writer runs on a separate thread,
+ * which waits while the HTTP client has no demand.
+ * <p>
+ * Every signal to the subscriber is sent from the writer thread, including the error for a non-positive request.
+ * <p>
+ * The publisher keeps no state between subscriptions, so a request using it may be sent again.
+ */
+final class StreamingBodyPublisher implements HttpRequest.BodyPublisher {
+
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * Writers spend most of their time waiting for demand, so virtual threads are used where available
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = VirtualThreads.newExecutor("mailtrap-body-writer");
+
+    private final BodyWriter writer;
+    private final int chunkSize;
+    private final Executor executor;
+
+    StreamingBodyPublisher(BodyWriter writer) {
+        this(writer, DEFAULT_CHUNK_SIZE, DEFAULT_EXECUTOR);
+    }
+
+    StreamingBodyPublisher(BodyWriter writer, int chunkSize, Executor executor) {
+        this.writer = Objects.requireNonNull(writer, "writer");
+        this.chunkSize = chunkSize;
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * @return -1, the length is not known until the body is written
+     */
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        var subscription = new ChunkSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription::run);
+    }
+
+    /**
+     * Writes a request body to the given stream.
+     */
+    @FunctionalInterface
+    interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Output stream for the writer, which is at the same time the subscription of the HTTP client.
+     */
+    private final class ChunkSubscription extends OutputStream implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition demandChanged = lock.newCondition();
+
+        private long demand;
+        private boolean cancelled;
+        private IllegalArgumentException invalidDemand;
+        private ByteBuffer chunk;
+
+        ChunkSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    // signalled by the writer thread, which may be calling onNext right now
+                    if (!cancelled) {
+                        invalidDemand = new IllegalArgumentException("Requested demand must be positive: " + n);
+                    }
+                    cancelled = true;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                demandChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                demandChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void run() {
+            try {
+                writer.writeTo(this);
+                if (chunk != null && chunk.position() > 0) {
+                    emit();
+                }
+                if (isCancelled()) {
+                    throw new CancelledException();
+                }
+                subscriber.onComplete();
+            } catch (CancelledException e) {
+                // the HTTP client is not interested in the rest of the body, unless it requested a non-positive demand
+                IllegalArgumentException error = invalidDemand();
+                if (error != null) {
+                    subscriber.onError(error);
+                }
+            } catch (Throwable e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (chunk == null) {
+                chunk = ByteBuffer.allocate(chunkSize);
+            }
+            chunk.put((byte) b);
+            if (!chunk.hasRemaining()) {
+                emit();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (chunk == null) {
+                    chunk = ByteBuffer.allocate(chunkSize);
+                }
+                int count = Math.min(length, chunk.remaining());
+                chunk.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+                if (!chunk.hasRemaining()) {
+                    emit();
+                }
+            }
+        }
+
+        /**
+         * Completion is signalled once the writer returns, so closing the stream (as serializers do) has no effect.
+         */
+        @Override
+        public void close() {
+        }
+
+        private void emit() throws IOException {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled) {
+                    demandChanged.await();
+                }
+                if (cancelled) {
+                    throw new CancelledException();
+                }
+                demand--;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for demand", e);
+            } finally {
+                lock.unlock();
+            }
+
+            var buffer = chunk.flip();
+            chunk = null;
+            subscriber.onNext(buffer);
+        }
+
+        private boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private IllegalArgumentException invalidDemand() {
+            lock.lock();
+            try {
+                return invalidDemand;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class CancelledException extends IOException {
+        CancelledException() {
+            super("Body subscription has been cancelled");
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+}
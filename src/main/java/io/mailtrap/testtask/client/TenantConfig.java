@@ -0,0 +1,39 @@
+package io.mailtrap.testtask.client;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Settings of one tenant of a {@link MailtrapClientRegistry}.
+ */
+@Getter
+@Builder
+public class TenantConfig {
+
+    /**
+     * Authentication token of the tenant for accessing the Mailtrap API
+     */
+    @NonNull
+    private final String token;
+
+    /**
+     * ID of the inbox to which emails of the tenant are sent. Required to use in sandbox environment
+     */
+    private final int inboxId;
+
+    @Builder.Default
+    private final boolean sandboxEnvironment = true;
+
+    /**
+     * Maximum number of requests per second of the tenant, not limited when zero
+     */
+    private final double permitsPerSecond;
+
+    /**
+     * Number of requests of the tenant which may be sent at once after a period of inactivity
+     */
+    @Builder.Default
+    private final int burst = 1;
+
+}
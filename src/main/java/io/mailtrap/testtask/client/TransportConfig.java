@@ -0,0 +1,96 @@
+package io.mailtrap.testtask.client;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration of the HTTP transport of {@link SendMailMailtrapClient}.
+ * <p>
+ * With {@link HttpClient.Version#HTTP_2} (the default) concurrent sends to one host are multiplexed over a single
+ * connection, with {@link HttpClient.Version#HTTP_1_1} every concurrent send takes a connection of its own from the pool.
+ */
+@Getter
+@Builder
+public class TransportConfig {
+
+    private static final TransportConfig DEFAULTS = TransportConfig.builder().build();
+
+    /**
+     * Preferred HTTP version, HTTP/1.1 is used if the server does not support HTTP/2
+     */
+    @Builder.Default
+    private final HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    /**
+     * Executor of the HTTP client for its asynchronous tasks, such as completing response futures.
+     * The HTTP client creates its own one when {@code null}
+     */
+    private final Executor executor;
+
+    /**
+     * Runs the tasks of the HTTP client and the default asynchronous work of the SDK - {@code sendAsync} without
+     * an executor, retries and rate limiter delays - on virtual threads, unless {@link #executor} is set.
+     * Falls back to a cached pool of platform threads on JDKs before 21, see {@link VirtualThreads}
+     */
+    @Builder.Default
+    private final boolean virtualThreads = false;
+
+    /**
+     * Timeout of establishing a connection, no timeout when {@code null}
+     */
+    private final Duration connectTimeout;
+
+    /**
+     * Timeout of receiving the response headers of each request, no timeout when {@code null}
+     */
+    private final Duration requestTimeout;
+
+    /**
+     * @return configuration with the defaults of {@link HttpClient}
+     */
+    public static TransportConfig defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return executor of the asynchronous work of the SDK when none is given by the caller
+     */
+    Executor defaultExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        return virtualThreads ? VirtualThreads.sharedExecutor() : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * @return HTTP client with this configuration. Clients with the {@link #defaults() default} configuration share one
+     * HTTP client, created on first use, so they share its connections and its selector thread is started only once
+     */
+    HttpClient httpClient() {
+        if (this == DEFAULTS) {
+            return DefaultHttpClientHolder.INSTANCE;
+        }
+        return newHttpClient();
+    }
+
+    private HttpClient newHttpClient() {
+        var builder = HttpClient.newBuilder().version(httpVersion);
+        if (executor != null || virtualThreads) {
+            builder.executor(defaultExecutor());
+        }
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout);
+        }
+        return builder.build();
+    }
+
+    private static final class DefaultHttpClientHolder {
+        private static final HttpClient INSTANCE = DEFAULTS.newHttpClient();
+    }
+
+}
@@ -0,0 +1,71 @@
+package io.mailtrap.testtask.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors running each task on a new virtual thread on JDK 21+.
+ * <p>
+ * The SDK is built for JDK 11, so virtual threads are looked up at runtime. On older JDKs the executors fall back
+ * to cached pools of daemon platform threads, which behave the same, only with a thread cost per concurrent task.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookupVirtualThreadPerTaskExecutor();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the JDK supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * @param fallbackThreadName name prefix of the platform threads used if virtual threads are not supported
+     * @return executor starting a virtual thread per task, or a cached pool of daemon threads on JDKs before 21
+     */
+    public static ExecutorService newExecutor(String fallbackThreadName) {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Virtual thread executor can not be created", e);
+            }
+        }
+
+        var counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, fallbackThreadName + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return executor shared by all clients configured to use virtual threads, created on first use
+     */
+    static ExecutorService sharedExecutor() {
+        return SharedExecutorHolder.EXECUTOR;
+    }
+
+    private static MethodHandle lookupVirtualThreadPerTaskExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class SharedExecutorHolder {
+        private static final ExecutorService EXECUTOR = newExecutor("mailtrap-worker");
+    }
+
+}
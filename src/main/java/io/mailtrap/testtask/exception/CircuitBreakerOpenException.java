@@ -0,0 +1,12 @@
+package io.mailtrap.testtask.exception;
+
+/**
+ * Thrown when a request is rejected without being sent, because the circuit breaker of the client is open
+ */
+public class CircuitBreakerOpenException extends BaseMailtrapException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+}
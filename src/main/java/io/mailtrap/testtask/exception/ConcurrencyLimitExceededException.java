@@ -0,0 +1,12 @@
+package io.mailtrap.testtask.exception;
+
+/**
+ * Thrown when a request is rejected without being sent, because the client has reached its limit of concurrent requests
+ */
+public class ConcurrencyLimitExceededException extends BaseMailtrapException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+
+}
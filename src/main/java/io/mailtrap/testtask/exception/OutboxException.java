@@ -0,0 +1,12 @@
+package io.mailtrap.testtask.exception;
+
+/**
+ * Custom exception wrapper for I/O errors of the outbox log
+ */
+public class OutboxException extends BaseMailtrapException {
+
+    public OutboxException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,168 @@
+package io.mailtrap.testtask.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SendMetrics} keeping histograms and counters in memory, cheap enough to be left on under full load.
+ * <p>
+ * Values can be read at any time, e.g. to be logged periodically or exported to a metrics library.
+ * Durations are recorded in nanoseconds.
+ */
+public class InMemorySendMetrics implements SendMetrics {
+
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final Histogram validation = new Histogram();
+    private final Histogram serialization = new Histogram();
+    private final Histogram payloadBytes = new Histogram();
+    private final Histogram timeToFirstByte = new Histogram();
+    private final Histogram latency = new Histogram();
+    private final Histogram parsing = new Histogram();
+    private final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS_CODE + 1);
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder deduplications = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public void validated(long nanos) {
+        validation.record(nanos);
+    }
+
+    @Override
+    public void serialized(long nanos, long bytes) {
+        serialization.record(nanos);
+        if (bytes >= 0) {
+            payloadBytes.record(bytes);
+        }
+    }
+
+    @Override
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void firstByte(long nanos) {
+        timeToFirstByte.record(nanos);
+    }
+
+    @Override
+    public void responded(int statusCode, long nanos) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        if (statusCode >= 0 && statusCode <= MAX_STATUS_CODE) {
+            statusCodes.incrementAndGet(statusCode);
+        }
+    }
+
+    @Override
+    public void failed(long nanos) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        failures.increment();
+    }
+
+    @Override
+    public void parsed(long nanos) {
+        parsing.record(nanos);
+    }
+
+    @Override
+    public void rejected() {
+        rejections.increment();
+    }
+
+    @Override
+    public void deduplicated() {
+        deduplications.increment();
+    }
+
+    @Override
+    public void retried(int attempt) {
+        retries.increment();
+    }
+
+    public Histogram getValidation() {
+        return validation;
+    }
+
+    public Histogram getSerialization() {
+        return serialization;
+    }
+
+    /**
+     * @return sizes of the request bodies, streamed bodies are not included
+     */
+    public Histogram getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    public Histogram getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * @return latencies of all requests, including failed ones
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public Histogram getParsing() {
+        return parsing;
+    }
+
+    /**
+     * @param statusCode HTTP status code
+     * @return number of responses with the status code
+     */
+    public long getStatusCount(int statusCode) {
+        return statusCode >= 0 && statusCode <= MAX_STATUS_CODE ? statusCodes.get(statusCode) : 0;
+    }
+
+    /**
+     * @return number of requests failed without a response
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return number of requests rejected by the circuit breaker or the concurrency limiter without being sent
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return number of emails answered by the dedup cache without being sent
+     */
+    public long getDeduplications() {
+        return deduplications.sum();
+    }
+
+    /**
+     * @return number of requests sent and not yet responded
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public String toString() {
+        return "InMemorySendMetrics{validation=[" + validation + "], serialization=[" + serialization
+                + "], payloadBytes=[" + payloadBytes + "], timeToFirstByte=[" + timeToFirstByte
+                + "], latency=[" + latency + "], parsing=[" + parsing + "], failures=" + getFailures()
+                + ", retries=" + getRetries() + ", rejections=" + getRejections()
+                + ", deduplications=" + getDeduplications() + ", inFlight=" + getInFlight() + "}";
+    }
+
+}
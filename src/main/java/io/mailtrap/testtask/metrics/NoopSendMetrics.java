@@ -0,0 +1,13 @@
+package io.mailtrap.testtask.metrics;
+
+/**
+ * Metrics ignoring all events.
+ */
+final class NoopSendMetrics implements SendMetrics {
+
+    static final NoopSendMetrics INSTANCE = new NoopSendMetrics();
+
+    private NoopSendMetrics() {
+    }
+
+}
@@ -0,0 +1,97 @@
+package io.mailtrap.testtask.metrics;
+
+/**
+ * Listener of the send path of {@link io.mailtrap.testtask.client.SendMailMailtrapClient}, used to export its metrics.
+ * <p>
+ * Methods are called on the sending threads for every send, so implementations have to be thread-safe and cheap -
+ * they should neither block nor allocate. All methods do nothing by default, so an implementation overrides only
+ * the events it is interested in. Durations are in nanoseconds.
+ */
+public interface SendMetrics {
+
+    /**
+     * @return metrics ignoring all events, used by default
+     */
+    static SendMetrics noop() {
+        return NoopSendMetrics.INSTANCE;
+    }
+
+    /**
+     * The request body has been validated.
+     *
+     * @param nanos validation time
+     */
+    default void validated(long nanos) {
+    }
+
+    /**
+     * The request body has been serialized.
+     *
+     * @param nanos serialization time, only the preparation of the stream if the body is streamed
+     * @param bytes size of the serialized body, {@code -1} if the body is streamed and its size is not known up front
+     */
+    default void serialized(long nanos, long bytes) {
+    }
+
+    /**
+     * An HTTP request has been sent, including each retry.
+     * Followed by exactly one call of either {@link #responded(int, long)} or {@link #failed(long)}.
+     */
+    default void requestStarted() {
+    }
+
+    /**
+     * Headers of the response have been received.
+     *
+     * @param nanos time from sending the request until the response headers have been received
+     */
+    default void firstByte(long nanos) {
+    }
+
+    /**
+     * A response has been received, including the responses which are retried.
+     *
+     * @param statusCode HTTP status code of the response
+     * @param nanos      time from sending the request until the response has been received.
+     *                   The blocking {@code send} reads the body while parsing it, so its latency includes the parsing
+     */
+    default void responded(int statusCode, long nanos) {
+    }
+
+    /**
+     * The request has failed without a response.
+     *
+     * @param nanos time from sending the request until the failure
+     */
+    default void failed(long nanos) {
+    }
+
+    /**
+     * The response has been parsed.
+     *
+     * @param nanos parsing time
+     */
+    default void parsed(long nanos) {
+    }
+
+    /**
+     * The request has been rejected without being sent, by the circuit breaker or the concurrency limiter of the client.
+     */
+    default void rejected() {
+    }
+
+    /**
+     * The email has not been sent, because the same email has been sent during the window of the dedup cache of the client.
+     */
+    default void deduplicated() {
+    }
+
+    /**
+     * The request is sent again, either because of the retry policy or because it has been throttled.
+     *
+     * @param attempt number of the failed attempt, starting from 1
+     */
+    default void retried(int attempt) {
+    }
+
+}
@@ -0,0 +1,294 @@
+package io.mailtrap.testtask.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.mailtrap.testtask.Mapper;
+import io.mailtrap.testtask.client.MailtrapClient;
+import io.mailtrap.testtask.client.SendResult;
+import io.mailtrap.testtask.client.VirtualThreads;
+import io.mailtrap.testtask.exception.CircuitBreakerOpenException;
+import io.mailtrap.testtask.exception.ConcurrencyLimitExceededException;
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import io.mailtrap.testtask.exception.JsonException;
+import io.mailtrap.testtask.exception.OutboxException;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable local outbox in front of a {@link MailtrapClient}.
+ * <p>
+ * {@link #enqueue(CommonMail)} appends the mail to a segmented write-ahead log on the local disk and returns right away,
+ * so callers wait neither for Mailtrap API nor for the disk. Workers send the mails through the client in the background
+ * and mark them done in the log. Mails which have not been marked done when the process stops are sent again
+ * by the next outbox opened on the same directory, so every mail is delivered at least once.
+ * <p>
+ * A mail is marked done once Mailtrap API has accepted or rejected it, or if it is invalid.
+ * Sends failed without a response, with a response which can not be parsed (such as an error page of a proxy)
+ * or with a {@code 429} or {@code 5xx} status are attempted again after {@link OutboxConfig#getRetryDelay()},
+ * so configure a {@link io.mailtrap.testtask.client.RetryPolicy} on the client for quick retries. Sends rejected
+ * by the circuit breaker or the concurrency limit of the client are attempted again too, but are not counted.
+ * After {@link OutboxConfig#getMaxAttempts()} failed sends the mail is written to the {@value #DEAD_LETTER} subdirectory
+ * as {@code <sequence number>.json} and marked done, so a mail which never gets through does not keep the log growing.
+ * <p>
+ * Mails are stored as JSON, attachment sources are read and encoded when the mail is enqueued.
+ */
+public class Outbox implements AutoCloseable {
+
+    static final String DEAD_LETTER = "dead-letter";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final Path deadLetter;
+    private final MailtrapClient client;
+    private final OutboxConfig config;
+    private final OutboxLog log;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final ExecutorService workers;
+    private volatile boolean closed;
+
+    private Outbox(Path directory, MailtrapClient client, OutboxConfig config) {
+        this.client = Objects.requireNonNull(client, "client");
+        this.config = Objects.requireNonNull(config, "config");
+        if (config.getWorkers() < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        if (config.getMaxAttempts() < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.deadLetter = directory.resolve(DEAD_LETTER);
+
+        var pending = new TreeMap<Long, byte[]>();
+        this.log = new OutboxLog(directory, config.getSegmentSize(), config.isFsync(), pending);
+        for (Map.Entry<Long, byte[]> entry : pending.entrySet()) {
+            queue.add(new Entry(entry.getKey(), null, entry.getValue()));
+        }
+        pendingCount.set(pending.size());
+
+        this.workers = VirtualThreads.newExecutor("mailtrap-outbox-worker");
+        for (int i = 0; i < config.getWorkers(); i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**
+     * Opens the outbox in the directory and starts sending the mails left in it.
+     *
+     * @param directory directory of the log, created if it does not exist
+     * @param client    client used to send the mails
+     * @return the outbox
+     * @throws OutboxException if the log can not be read or created
+     */
+    public static Outbox open(Path directory, MailtrapClient client) {
+        return open(directory, client, OutboxConfig.defaults());
+    }
+
+    /**
+     * Opens the outbox in the directory and starts sending the mails left in it.
+     *
+     * @param directory directory of the log, created if it does not exist
+     * @param client    client used to send the mails
+     * @param config    configuration of the outbox
+     * @return the outbox
+     * @throws OutboxException if the log can not be read or created
+     */
+    public static Outbox open(Path directory, MailtrapClient client, OutboxConfig config) {
+        return new Outbox(directory, client, config);
+    }
+
+    /**
+     * Validates the mail and appends it to the outbox. Returns as soon as the mail is written to the OS,
+     * the returned future tells when it is durable.
+     *
+     * @param mail the email to be sent
+     * @return future completed with the sequence number of the mail once it survives a crash
+     * @throws InvalidRequestBodyException if the request object is invalid
+     * @throws JsonException               if the mail can not be serialized
+     * @throws OutboxException             if the mail can not be written or the outbox is closed
+     */
+    public CompletableFuture<Long> enqueue(CommonMail mail) {
+        validate(mail);
+
+        byte[] payload;
+        try {
+            payload = Mapper.get().writeValueAsBytes(mail);
+        } catch (JsonProcessingException e) {
+            throw new JsonException("An error has occurred while serializing the object to JSON", e);
+        }
+
+        var durable = new CompletableFuture<Long>();
+        pendingCount.incrementAndGet();
+        long seq;
+        try {
+            seq = log.append(payload, durable);
+        } catch (OutboxException e) {
+            pendingCount.decrementAndGet();
+            throw e;
+        }
+        queue.add(new Entry(seq, mail, null));
+        return durable;
+    }
+
+    /**
+     * @return number of mails enqueued and not yet done
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Stops the workers, waiting for the sends in progress, and closes the log.
+     * Mails which have not been sent stay in the log for the next outbox opened on the directory.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    private void validate(CommonMail mail) {
+        if (mail == null) {
+            throw new InvalidRequestBodyException("Mail must not be null");
+        }
+        String violations = config.getMailValidator().validate(mail);
+        if (violations != null) {
+            throw new InvalidRequestBodyException("Invalid request body. Violations: " + violations);
+        }
+    }
+
+    private void work() {
+        while (!closed) {
+            Entry entry;
+            try {
+                entry = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (entry != null) {
+                try {
+                    deliver(entry);
+                } catch (RuntimeException e) {
+                    // the mail could not be marked done, it stays in the log and is attempted again
+                    requeue(entry);
+                }
+            }
+        }
+    }
+
+    private void deliver(Entry entry) {
+        CommonMail mail = entry.mail;
+        CommonResponse response;
+        try {
+            if (mail == null) {
+                mail = Mapper.get().readValue(entry.payload, CommonMail.class);
+            }
+            response = client.send(mail);
+        } catch (IOException e) {
+            done(entry, null, null, new JsonException("An error has occurred while parsing the stored mail", e));
+            return;
+        } catch (InvalidRequestBodyException e) {
+            done(entry, mail, null, e);
+            return;
+        } catch (CircuitBreakerOpenException | ConcurrencyLimitExceededException e) {
+            // rejected by the client without being sent, so not an attempt
+            requeue(entry);
+            return;
+        } catch (RuntimeException e) {
+            // no response, or one which can not be parsed
+            retry(entry, mail, null, e);
+            return;
+        }
+        if (isTransient(response)) {
+            retry(entry, mail, response, null);
+            return;
+        }
+        done(entry, mail, response, null);
+    }
+
+    /**
+     * Counts the failed send and sends the mail again, or moves it to the dead-letter directory after the last attempt.
+     */
+    private void retry(Entry entry, CommonMail mail, CommonResponse response, RuntimeException error) {
+        if (++entry.attempts >= config.getMaxAttempts() && moveToDeadLetter(entry, mail)) {
+            done(entry, mail, response, error);
+            return;
+        }
+        requeue(entry);
+    }
+
+    /**
+     * @return true if Mailtrap API is throttling or failing, rather than rejecting the mail
+     */
+    private static boolean isTransient(CommonResponse response) {
+        return response != null && (response.getStatusCode() == TOO_MANY_REQUESTS || response.getStatusCode() >= 500);
+    }
+
+    private void requeue(Entry entry) {
+        CompletableFuture.delayedExecutor(config.getRetryDelay().toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> queue.add(entry));
+    }
+
+    /**
+     * Writes the mail to the dead-letter directory before it is marked done in the log.
+     *
+     * @return false if the mail can not be written, it then stays in the log and is attempted again
+     */
+    private boolean moveToDeadLetter(Entry entry, CommonMail mail) {
+        try {
+            byte[] payload = entry.payload != null ? entry.payload : Mapper.get().writeValueAsBytes(mail);
+            Files.createDirectories(deadLetter);
+            Files.write(deadLetter.resolve(entry.seq + ".json"), payload);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void done(Entry entry, CommonMail mail, CommonResponse response, Throwable error) {
+        log.acknowledge(entry.seq);
+        pendingCount.decrementAndGet();
+        try {
+            config.getListener().accept(SendResult.of(entry.seq, mail, response, error));
+        } catch (RuntimeException e) {
+            // the mail is done, a failing listener must not stop the worker
+        }
+    }
+
+    /**
+     * Mail waiting to be sent. Replayed mails are kept serialized until they are sent.
+     * Handled by one worker at a time, the queue hands it over between them
+     */
+    private static final class Entry {
+
+        private final long seq;
+        private final CommonMail mail;
+        private final byte[] payload;
+        private int attempts;
+
+        private Entry(long seq, CommonMail mail, byte[] payload) {
+            this.seq = seq;
+            this.mail = mail;
+            this.payload = payload;
+        }
+
+    }
+
+}
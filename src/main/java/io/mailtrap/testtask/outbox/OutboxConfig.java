@@ -0,0 +1,75 @@
+package io.mailtrap.testtask.outbox;
+
+import io.mailtrap.testtask.client.SendResult;
+import io.mailtrap.testtask.validation.MailValidator;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Configuration of an {@link Outbox}.
+ */
+@Getter
+@Builder
+public class OutboxConfig {
+
+    private static final OutboxConfig DEFAULTS = OutboxConfig.builder().build();
+
+    /**
+     * Size in bytes from which a new segment file is started
+     */
+    @Builder.Default
+    private final long segmentSize = 64L * 1024 * 1024;
+
+    /**
+     * Number of workers sending mails from the outbox concurrently
+     */
+    @Builder.Default
+    private final int workers = 4;
+
+    /**
+     * Delay before a mail is sent again after the send has failed without a response
+     * or with a {@code 429} or {@code 5xx} status
+     */
+    @Builder.Default
+    private final Duration retryDelay = Duration.ofSeconds(1);
+
+    /**
+     * Number of failed sends (see {@link #retryDelay}) after which a mail is moved to the {@code dead-letter} subdirectory
+     * of the outbox and reported to the {@link #listener} with the last error, so it no longer keeps its segment
+     * on the disk. Counted from the opening of the outbox
+     */
+    @Builder.Default
+    private final int maxAttempts = 100;
+
+    /**
+     * Whether records are forced to the storage device. Without it, enqueued mails survive a crash of the process,
+     * but not of the OS
+     */
+    @Builder.Default
+    private final boolean fsync = true;
+
+    /**
+     * Validator of mails before they are appended to the outbox
+     */
+    @Builder.Default
+    private final MailValidator mailValidator = MailValidator.fast();
+
+    /**
+     * Receives the final result of every mail, called on the worker threads.
+     * The index of the result is the sequence number returned by {@link Outbox#enqueue}
+     */
+    @Builder.Default
+    private final Consumer<SendResult> listener = result -> {
+    };
+
+    /**
+     * @return default configuration
+     */
+    public static OutboxConfig defaults() {
+        return DEFAULTS;
+    }
+
+}
@@ -0,0 +1,451 @@
+package io.mailtrap.testtask.outbox;
+
+import io.mailtrap.testtask.exception.OutboxException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented append-only log of the outbox.
+ * <p>
+ * Every record is {@code [int length][int crc32c][byte type][long seq][payload]}, where the length covers the type,
+ * the sequence number and the payload, and the checksum covers the same bytes. A {@link #MAIL} record holds a serialized
+ * mail, an {@link #ACK} record marks the mail with its sequence number as done. A torn record at the end of the log
+ * is detected by its length or checksum and cut off on open.
+ * <p>
+ * Records are written to the page cache under a lock, which takes microseconds. A single sync thread makes them durable
+ * with {@link FileChannel#force(boolean)}, covering all records written while the previous force was running,
+ * so concurrent appends share one fsync (group commit).
+ * <p>
+ * A segment is named after the sequence number of its first mail and a new one is started once the active one exceeds
+ * the segment size. Segments are deleted oldest first once all their mails are acknowledged, so an acknowledgement
+ * never outlives the segments it refers to, and no acknowledged mail comes back on replay.
+ */
+final class OutboxLog implements AutoCloseable {
+
+    static final byte MAIL = 1;
+    static final byte ACK = 2;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES + Long.BYTES;
+    private static final int CHECKED_HEADER_SIZE = Byte.BYTES + Long.BYTES;
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final CRC32C crc = new CRC32C();
+    private final Thread syncThread;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private long nextSeq;
+    private long writeCount;
+    private long syncedCount;
+    private boolean closed;
+    private IOException syncError;
+
+    /**
+     * Opens the log in the directory, creating it if needed, and collects the mails which have not been acknowledged.
+     *
+     * @param directory   directory of the segment files
+     * @param segmentSize size in bytes from which a new segment is started
+     * @param fsync       whether records are forced to the storage device, otherwise they are left to the OS
+     * @param pending     receives the payloads of the unacknowledged mails by their sequence numbers
+     * @throws OutboxException if the log can not be read or created
+     */
+    OutboxLog(Path directory, long segmentSize, boolean fsync, TreeMap<Long, byte[]> pending) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            replay(pending);
+            if (segments.isEmpty()) {
+                segments.add(Segment.create(directory, nextSeq));
+            }
+            deleteAcknowledgedSegments();
+        } catch (IOException e) {
+            closeSegments();
+            throw new OutboxException("An error has occurred while opening the outbox log in " + directory, e);
+        }
+
+        syncThread = new Thread(this::syncLoop, "mailtrap-outbox-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /**
+     * Appends a mail to the log.
+     *
+     * @param payload serialized mail
+     * @param durable future completed with the sequence number of the mail once the record is durable
+     * @return the sequence number of the mail
+     * @throws OutboxException if the record can not be written or the log is closed
+     */
+    long append(byte[] payload, CompletableFuture<Long> durable) {
+        lock.lock();
+        try {
+            ensureOpen();
+            Segment active = segments.getLast();
+            if (active.size > 0 && active.size + HEADER_SIZE + payload.length > segmentSize) {
+                active = roll();
+            }
+
+            long seq = nextSeq++;
+            write(active, MAIL, seq, payload);
+            active.pending++;
+            waiters.add(new Waiter(writeCount, seq, durable));
+            written.signal();
+            return seq;
+        } catch (IOException e) {
+            throw new OutboxException("An error has occurred while writing to the outbox log", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the mail as done. The acknowledgement is made durable with the next group commit, but is not waited for -
+     * losing it only sends the mail again after a crash.
+     *
+     * @param seq sequence number of the mail
+     * @throws OutboxException if the record can not be written or the log is closed
+     */
+    void acknowledge(long seq) {
+        lock.lock();
+        try {
+            ensureOpen();
+            write(segments.getLast(), ACK, seq, null);
+            Segment segment = segmentOf(seq);
+            if (segment != null) {
+                segment.pending--;
+            }
+            written.signal();
+        } catch (IOException e) {
+            throw new OutboxException("An error has occurred while writing to the outbox log", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of segment files
+     */
+    int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes all written records durable and closes the segment files. Futures of appends which have not been made
+     * durable are completed exceptionally.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            written.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeSegments();
+    }
+
+    private void write(Segment segment, byte type, long seq, byte[] payload) throws IOException {
+        int payloadLength = payload == null ? 0 : payload.length;
+        int recordSize = HEADER_SIZE + payloadLength;
+        if (buffer.capacity() < recordSize) {
+            buffer = ByteBuffer.allocate(Math.max(recordSize, buffer.capacity() * 2));
+        }
+
+        buffer.clear();
+        buffer.putInt(CHECKED_HEADER_SIZE + payloadLength)
+                .putInt(0)
+                .put(type)
+                .putLong(seq);
+        if (payload != null) {
+            buffer.put(payload);
+        }
+        crc.reset();
+        crc.update(buffer.array(), HEADER_SIZE - CHECKED_HEADER_SIZE, CHECKED_HEADER_SIZE + payloadLength);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            segment.channel.write(buffer, segment.size + buffer.position());
+        }
+        segment.size += recordSize;
+        writeCount++;
+    }
+
+    /**
+     * Starts a new segment. The previous one is forced first, so the sync thread only ever needs to force the active one.
+     */
+    private Segment roll() throws IOException {
+        if (fsync) {
+            segments.getLast().channel.force(false);
+        }
+        var segment = Segment.create(directory, nextSeq);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * @return segment holding the mail with the sequence number, {@code null} if it has been deleted
+     */
+    private Segment segmentOf(long seq) {
+        Iterator<Segment> iterator = segments.descendingIterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.firstSeq <= seq) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long target;
+            FileChannel channel;
+            boolean last;
+            lock.lock();
+            try {
+                while (!closed && syncedCount == writeCount && syncError == null) {
+                    written.awaitUninterruptibly();
+                }
+                if (syncError != null) {
+                    return;
+                }
+                target = writeCount;
+                channel = segments.getLast().channel;
+                last = closed;
+            } finally {
+                lock.unlock();
+            }
+
+            List<Waiter> done = new ArrayList<>();
+            IOException error = null;
+            try {
+                if (fsync && target > syncedCount) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if (error == null) {
+                    syncedCount = target;
+                    while (!waiters.isEmpty() && waiters.peekFirst().writeCount <= target) {
+                        done.add(waiters.pollFirst());
+                    }
+                    deleteAcknowledgedSegments();
+                } else {
+                    syncError = error;
+                }
+                if (last || error != null) {
+                    done.addAll(waiters);
+                    waiters.clear();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            for (Waiter waiter : done) {
+                if (waiter.writeCount <= target && error == null) {
+                    waiter.future.complete(waiter.seq);
+                } else {
+                    waiter.future.completeExceptionally(new OutboxException("The outbox log has not been synced",
+                            error != null ? error : new IOException("The outbox log has been closed")));
+                }
+            }
+            if (last || error != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest segments while all their mails are acknowledged, never the active one. Called under the lock.
+     */
+    private void deleteAcknowledgedSegments() {
+        while (segments.size() > 1 && segments.peekFirst().pending == 0) {
+            Segment segment = segments.pollFirst();
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                // the segment is replayed again on open, which only deletes it once more
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The outbox log has been closed");
+        }
+        if (syncError != null) {
+            throw syncError;
+        }
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                // nothing to recover, the records are either durable or replayed as far as they are intact
+            }
+        }
+    }
+
+    /**
+     * Reads all segments in order, cutting off a torn tail, and collects the unacknowledged mails.
+     */
+    private void replay(TreeMap<Long, byte[]> pending) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            files.forEach(paths::add);
+        }
+        paths.sort(null);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        for (Path path : paths) {
+            var segment = Segment.open(path);
+            segments.add(segment);
+            nextSeq = Math.max(nextSeq, segment.firstSeq);
+
+            long position = 0;
+            long fileSize = segment.channel.size();
+            while (position + HEADER_SIZE <= fileSize) {
+                header.clear();
+                readFully(segment.channel, header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                byte type = header.get();
+                long seq = header.getLong();
+                if (length < CHECKED_HEADER_SIZE || position + Integer.BYTES * 2 + length > fileSize) {
+                    break;
+                }
+
+                var payload = ByteBuffer.allocate(length - CHECKED_HEADER_SIZE);
+                readFully(segment.channel, payload, position + HEADER_SIZE);
+                crc.reset();
+                crc.update(header.array(), HEADER_SIZE - CHECKED_HEADER_SIZE, CHECKED_HEADER_SIZE);
+                crc.update(payload.array());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                if (type == MAIL) {
+                    pending.put(seq, payload.array());
+                    segment.pending++;
+                    nextSeq = Math.max(nextSeq, seq + 1);
+                } else if (type == ACK && pending.remove(seq) != null) {
+                    Segment owner = segmentOf(seq);
+                    if (owner != null) {
+                        owner.pending--;
+                    }
+                }
+                position += HEADER_SIZE + length - CHECKED_HEADER_SIZE;
+            }
+
+            if (position < fileSize) {
+                // torn or corrupted record, everything after it has never been acknowledged as durable
+                segment.channel.truncate(position);
+            }
+            segment.size = position;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the outbox log");
+            }
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final long firstSeq;
+        private final FileChannel channel;
+        private long size;
+        private long pending;
+
+        private Segment(Path path, long firstSeq, FileChannel channel) {
+            this.path = path;
+            this.firstSeq = firstSeq;
+            this.channel = channel;
+        }
+
+        static Segment create(Path directory, long firstSeq) throws IOException {
+            Path path = directory.resolve(String.format("%020d%s", firstSeq, SUFFIX));
+            return new Segment(path, firstSeq, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+        static Segment open(Path path) throws IOException {
+            String name = path.getFileName().toString();
+            long firstSeq;
+            try {
+                firstSeq = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                throw new IOException("Unexpected file in the outbox log directory: " + path, e);
+            }
+            return new Segment(path, firstSeq, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+    }
+
+    private static final class Waiter {
+
+        private final long writeCount;
+        private final long seq;
+        private final CompletableFuture<Long> future;
+
+        private Waiter(long writeCount, long seq, CompletableFuture<Long> future) {
+            this.writeCount = writeCount;
+            this.seq = seq;
+            this.future = future;
+        }
+
+    }
+
+}
@@ -1,20 +1,35 @@
 package io.mailtrap.testtask.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.mailtrap.testtask.serialization.AttachmentSerializer;
+import io.mailtrap.testtask.validation.AttachmentContentPresent;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
 /**
  * Represents an attachment in an email.
+ * <p>
+ * The content is either set as a base64-encoded string or taken from an {@link AttachmentSource},
+ * which is encoded in chunks while the mail is being serialized.
  */
 @Getter
 @Setter
 @RequiredArgsConstructor
+@AttachmentContentPresent
+@JsonSerialize(using = AttachmentSerializer.class)
 public class Attachment extends AbstractModel {
 
-    @NotEmpty
+    /**
+     * Base64-encoded content, ignored when {@link #source} is set
+     */
     private String content;
 
     private String type;
@@ -27,4 +42,61 @@ public class Attachment extends AbstractModel {
     @JsonProperty("content_id")
     private String contentId;
 
+    /**
+     * Source of the raw content, encoded to base64 during serialization
+     */
+    @JsonIgnore
+    private AttachmentSource source;
+
+    /**
+     * Creates an attachment of the file, which is read during serialization of every send.
+     *
+     * @param path path to the file, its name is used as the attachment filename
+     * @return new attachment
+     */
+    public static Attachment fromPath(Path path) {
+        return fromSource(path.getFileName().toString(), AttachmentSource.of(path));
+    }
+
+    /**
+     * Creates an attachment of the memory-mapped file.
+     *
+     * @param path path to the file, its name is used as the attachment filename
+     * @return new attachment
+     * @see AttachmentSource#mapped(Path)
+     */
+    public static Attachment fromMappedFile(Path path) {
+        return fromSource(path.getFileName().toString(), AttachmentSource.mapped(path));
+    }
+
+    /**
+     * Creates an attachment of the content supplied as a stream, which is opened during serialization of every send.
+     *
+     * @param filename attachment filename
+     * @param supplier supplier of new streams of the raw content
+     * @return new attachment
+     */
+    public static Attachment fromStream(String filename, Supplier<? extends InputStream> supplier) {
+        return fromSource(filename, AttachmentSource.of(supplier));
+    }
+
+    /**
+     * Describes the attachment without its content, so that logging it neither reads the source nor prints
+     * the whole base64 string.
+     */
+    @Override
+    public String toString() {
+        String length = source != null
+                ? "sourceLength=" + source.length()
+                : "contentLength=" + (content == null ? 0 : content.length());
+        return getClass().getName() + " [ filename=" + filename + ", type=" + type + ", " + length + " ]";
+    }
+
+    private static Attachment fromSource(String filename, AttachmentSource source) {
+        var attachment = new Attachment();
+        attachment.setFilename(filename);
+        attachment.setSource(source);
+        return attachment;
+    }
+
 }
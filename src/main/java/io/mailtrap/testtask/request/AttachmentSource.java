@@ -0,0 +1,101 @@
+package io.mailtrap.testtask.request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Source of raw (not encoded) attachment content, which is read and base64-encoded in chunks
+ * straight into the request body while the mail is being serialized.
+ */
+@FunctionalInterface
+public interface AttachmentSource {
+
+    /**
+     * Opens a new stream of the raw content. Called each time the mail is serialized.
+     *
+     * @return stream of the raw content, closed by the caller
+     * @throws IOException if the content can not be opened
+     */
+    InputStream open() throws IOException;
+
+    /**
+     * @return length of the raw content in bytes or -1 if it is not known in advance
+     */
+    default long length() {
+        return -1;
+    }
+
+    /**
+     * Creates a source reading the file each time the mail is serialized.
+     *
+     * @param path path to the file
+     * @return source of the file content
+     */
+    static AttachmentSource of(Path path) {
+        Objects.requireNonNull(path, "path");
+        return new AttachmentSource() {
+            @Override
+            public InputStream open() throws IOException {
+                return Files.newInputStream(path);
+            }
+
+            @Override
+            public long length() {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return -1;
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a source opening a new stream from the supplier each time the mail is serialized.
+     *
+     * @param supplier supplier of new streams of the raw content
+     * @return source of the supplied content
+     */
+    static AttachmentSource of(Supplier<? extends InputStream> supplier) {
+        Objects.requireNonNull(supplier, "supplier");
+        return supplier::get;
+    }
+
+    /**
+     * Creates a source of the memory-mapped file. The file is mapped once and read without copying it to the heap,
+     * so it is a good fit for large files sent many times.
+     *
+     * @param path path to the file
+     * @return source of the file content
+     * @throws UncheckedIOException if the file can not be mapped
+     */
+    static AttachmentSource mapped(Path path) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not map attachment file " + path, e);
+        }
+
+        return new AttachmentSource() {
+            @Override
+            public InputStream open() {
+                return new ByteBufferInputStream(buffer.duplicate());
+            }
+
+            @Override
+            public long length() {
+                return buffer.capacity();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,23 @@
+package io.mailtrap.testtask.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Represents a batch of emails sent in one request.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class BatchMail extends AbstractModel {
+
+    @NotEmpty
+    @Valid
+    private List<CommonMail> requests;
+
+}
@@ -0,0 +1,253 @@
+package io.mailtrap.testtask.request;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.mailtrap.testtask.Mapper;
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import io.mailtrap.testtask.exception.JsonException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mail with constant parts serialized once, for sending the same mail to many recipients.
+ * <p>
+ * The {@code subject}, {@code text} and {@code html} of the prototype may contain {@code {{name}}} placeholders,
+ * which are replaced by the values of the variables on every render. Everything else - the sender, the constant parts
+ * of the texts and the attachments - is serialized to JSON once, when the template is created, and shared by all
+ * renders, so a render costs as much as the recipients and the variable values, no matter the size of the mail.
+ * <p>
+ * Attachment sources are read when the template is created. Templates are immutable and thread-safe.
+ */
+public final class MailTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([A-Za-z0-9_.-]+)\\s*}}");
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private final CommonMail prototype;
+
+    /**
+     * Constant fragments as {@code byte[]}, variables as {@link Variable} and the recipients as {@link #RECIPIENTS}
+     */
+    private final List<Object> parts;
+    private final int variableCount;
+
+    /**
+     * Per field, the placeholders it consists of, or {@code null} if it has constant text and is never empty.
+     * An absent field has no placeholders and is always empty.
+     */
+    private final Map<String, List<Variable>> emptyWhen;
+
+    private static final Object RECIPIENTS = new Object();
+
+    private MailTemplate(CommonMail prototype, List<Object> parts, int variableCount, Map<String, List<Variable>> emptyWhen) {
+        this.prototype = prototype;
+        this.parts = parts;
+        this.variableCount = variableCount;
+        this.emptyWhen = emptyWhen;
+    }
+
+    /**
+     * Creates a template of the mail. The recipients of the prototype are ignored.
+     *
+     * @param prototype mail with the constant parts and placeholders
+     * @return new template
+     * @throws JsonException if the constant parts can not be serialized
+     */
+    public static MailTemplate of(CommonMail prototype) {
+        Objects.requireNonNull(prototype, "prototype");
+        var builder = new Builder();
+
+        builder.constant("{");
+        boolean first = true;
+        if (prototype.getFrom() != null) {
+            builder.constant("\"from\":").json(prototype.getFrom());
+            first = false;
+        }
+        builder.constant(first ? "\"to\":" : ",\"to\":").recipients();
+        builder.text("subject", prototype.getSubject());
+        builder.text("text", prototype.getText());
+        builder.text("html", prototype.getHtml());
+        if (prototype.getAttachments() != null && !prototype.getAttachments().isEmpty()) {
+            builder.constant(",\"attachments\":").json(prototype.getAttachments());
+        }
+        builder.constant("}");
+
+        return new MailTemplate(prototype, builder.build(), builder.variableCount,
+                Collections.unmodifiableMap(builder.emptyWhen));
+    }
+
+    /**
+     * Renders the JSON request body for the recipients.
+     *
+     * @param to        recipients of the mail
+     * @param variables values of the placeholders
+     * @return fragments of the JSON body in order. Constant fragments are shared between renders and must not be modified
+     * @throws InvalidRequestBodyException if the variables are {@code null}, a placeholder has no value, or the values
+     *                                     leave the subject or both the text and the html empty
+     * @throws JsonException               if the recipients can not be serialized
+     */
+    public List<byte[]> render(List<Address> to, Map<String, String> variables) {
+        if (variables == null) {
+            throw new InvalidRequestBodyException("Template variables must not be null");
+        }
+
+        var fragments = new ArrayList<byte[]>(parts.size());
+        for (Object part : parts) {
+            if (part instanceof byte[]) {
+                fragments.add((byte[]) part);
+            } else if (part == RECIPIENTS) {
+                fragments.add(toJson(to));
+            } else {
+                String name = ((Variable) part).name;
+                String value = variables.get(name);
+                if (value == null) {
+                    throw new InvalidRequestBodyException("Missing value of the template variable '" + name + "'");
+                }
+                fragments.add(ENCODER.quoteAsUTF8(value));
+            }
+        }
+
+        // empty values can leave a required field empty, which validation of the prototype can not see
+        if (rendersEmpty("subject", variables)) {
+            throw new InvalidRequestBodyException("Template variables leave the subject empty");
+        }
+        if (rendersEmpty("text", variables) && rendersEmpty("html", variables)) {
+            throw new InvalidRequestBodyException("Template variables leave both the text and the html empty");
+        }
+        return fragments;
+    }
+
+    /**
+     * Creates a mail sharing the constant parts with the prototype, with placeholders left as they are.
+     * Used to validate the mail without rendering it.
+     *
+     * @param to recipients of the mail
+     * @return new mail
+     */
+    public CommonMail toMail(List<Address> to) {
+        var mail = new CommonMail();
+        mail.setFrom(prototype.getFrom());
+        mail.setTo(to);
+        mail.setSubject(prototype.getSubject());
+        mail.setText(prototype.getText());
+        mail.setHtml(prototype.getHtml());
+        mail.setAttachments(prototype.getAttachments());
+        return mail;
+    }
+
+    /**
+     * @return number of placeholders in the template
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    private boolean rendersEmpty(String field, Map<String, String> variables) {
+        List<Variable> placeholders = emptyWhen.get(field);
+        if (placeholders == null) {
+            return false;
+        }
+        for (Variable placeholder : placeholders) {
+            if (!variables.get(placeholder.name).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] toJson(Object value) {
+        try {
+            return Mapper.get().writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new JsonException("An error has occurred while serializing the object to JSON", e);
+        }
+    }
+
+    private static final class Variable {
+        private final String name;
+
+        private Variable(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Collects the parts, merging adjacent constants into one fragment
+     */
+    private static final class Builder {
+
+        private final List<Object> parts = new ArrayList<>();
+        private final ByteArrayOutputStream constant = new ByteArrayOutputStream();
+        private final Map<String, List<Variable>> emptyWhen = new HashMap<>();
+        private int variableCount;
+
+        Builder constant(String json) {
+            constant.writeBytes(json.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        Builder json(Object value) {
+            constant.writeBytes(toJson(value));
+            return this;
+        }
+
+        Builder recipients() {
+            flush();
+            parts.add(RECIPIENTS);
+            return this;
+        }
+
+        /**
+         * Adds a string field, skipped if empty like the other empty fields of the mail
+         */
+        Builder text(String field, String template) {
+            if (template == null || template.isEmpty()) {
+                emptyWhen.put(field, List.of());
+                return this;
+            }
+
+            constant(",\"" + field + "\":\"");
+            Matcher matcher = PLACEHOLDER.matcher(template);
+            var placeholders = new ArrayList<Variable>();
+            boolean constantText = false;
+            int end = 0;
+            while (matcher.find()) {
+                constantText |= matcher.start() > end;
+                constant.writeBytes(ENCODER.quoteAsUTF8(template.substring(end, matcher.start())));
+                flush();
+                var variable = new Variable(matcher.group(1));
+                parts.add(variable);
+                placeholders.add(variable);
+                variableCount++;
+                end = matcher.end();
+            }
+            constantText |= end < template.length();
+            emptyWhen.put(field, constantText ? null : placeholders);
+            constant.writeBytes(ENCODER.quoteAsUTF8(template.substring(end)));
+            return constant("\"");
+        }
+
+        List<Object> build() {
+            flush();
+            return Collections.unmodifiableList(parts);
+        }
+
+        private void flush() {
+            if (constant.size() > 0) {
+                parts.add(constant.toByteArray());
+                constant.reset();
+            }
+        }
+
+    }
+
+}
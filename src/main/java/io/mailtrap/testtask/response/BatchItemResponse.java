@@ -0,0 +1,34 @@
+package io.mailtrap.testtask.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+/**
+ * Represents a response to a single email of a batch.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BatchItemResponse extends CommonResponse {
+    @JsonProperty("message_ids")
+    private List<String> messageIds;
+    private List<String> errors;
+
+    /**
+     * @return {@link SuccessResponse} or {@link FailureResponse}, as returned when sending the email on its own
+     */
+    public CommonResponse toCommonResponse() {
+        if (isSuccess()) {
+            var response = new SuccessResponse();
+            response.setSuccess(true);
+            response.setMessageIds(messageIds);
+            return response;
+        }
+
+        var response = new FailureResponse();
+        response.setErrors(errors);
+        return response;
+    }
+}
@@ -0,0 +1,16 @@
+package io.mailtrap.testtask.response;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+/**
+ * Represents a response to a batch of emails, holding a response for each email in the order of the requests.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BatchResponse extends CommonResponse {
+    private List<BatchItemResponse> responses;
+    private List<String> errors;
+}
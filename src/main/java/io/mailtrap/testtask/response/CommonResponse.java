@@ -1,5 +1,6 @@
 package io.mailtrap.testtask.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.mailtrap.testtask.request.AbstractModel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -13,4 +14,10 @@ public class CommonResponse extends AbstractModel {
 
     private boolean success;
 
+    /**
+     * HTTP status code of the response, 0 if not known. Not a part of the JSON body
+     */
+    @JsonIgnore
+    private int statusCode;
+
 }
@@ -0,0 +1,38 @@
+package io.mailtrap.testtask.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.mailtrap.testtask.request.Address;
+
+import java.io.IOException;
+
+import static io.mailtrap.testtask.serialization.AttachmentSerializer.writeIfNotEmpty;
+
+/**
+ * Serializes {@link Address} with the same fields, order and inclusion rules as the bean serializer would,
+ * without introspection.
+ */
+public class AddressSerializer extends StdSerializer<Address> {
+
+    public AddressSerializer() {
+        super(Address.class);
+    }
+
+    @Override
+    public void serialize(Address address, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(address, gen);
+    }
+
+    static void write(Address address, JsonGenerator gen) throws IOException {
+        if (address == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(address);
+        writeIfNotEmpty(gen, "name", address.getName());
+        writeIfNotEmpty(gen, "email", address.getEmail());
+        gen.writeEndObject();
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.mailtrap.testtask.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.mailtrap.testtask.request.Attachment;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serializes {@link Attachment} with the same fields, order and inclusion rules as the bean serializer would,
+ * except that the content of an {@link io.mailtrap.testtask.request.AttachmentSource} is read and base64-encoded
+ * in chunks straight into the generator, so it never exists as a {@code String}.
+ */
+public class AttachmentSerializer extends StdSerializer<Attachment> {
+
+    public AttachmentSerializer() {
+        super(Attachment.class);
+    }
+
+    @Override
+    public void serialize(Attachment attachment, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(attachment);
+
+        if (attachment.getSource() != null) {
+            gen.writeFieldName("content");
+            try (InputStream content = attachment.getSource().open()) {
+                gen.writeBinary(content, -1);
+            }
+        } else {
+            writeIfNotEmpty(gen, "content", attachment.getContent());
+        }
+
+        writeIfNotEmpty(gen, "type", attachment.getType());
+        writeIfNotEmpty(gen, "filename", attachment.getFilename());
+        writeIfNotEmpty(gen, "disposition", attachment.getDisposition());
+        writeIfNotEmpty(gen, "content_id", attachment.getContentId());
+
+        gen.writeEndObject();
+    }
+
+    static void writeIfNotEmpty(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.mailtrap.testtask.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.mailtrap.testtask.request.BatchMail;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serializes {@link BatchMail} with the same fields and inclusion rules as the bean serializer would,
+ * writing its mails by {@link CommonMailSerializer}.
+ */
+public class BatchMailSerializer extends StdSerializer<BatchMail> {
+
+    private final CommonMailSerializer mailSerializer = new CommonMailSerializer();
+
+    public BatchMailSerializer() {
+        super(BatchMail.class);
+    }
+
+    @Override
+    public void serialize(BatchMail batch, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(batch);
+
+        List<CommonMail> requests = batch.getRequests();
+        if (requests != null && !requests.isEmpty()) {
+            gen.writeArrayFieldStart("requests");
+            for (CommonMail mail : requests) {
+                if (mail == null) {
+                    gen.writeNull();
+                } else {
+                    mailSerializer.serialize(mail, gen, provider);
+                }
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeEndObject();
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.mailtrap.testtask.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.io.IOException;
+import java.util.List;
+
+import static io.mailtrap.testtask.serialization.AttachmentSerializer.writeIfNotEmpty;
+
+/**
+ * Serializes {@link CommonMail} with the same fields, order and inclusion rules as the bean serializer would,
+ * writing straight to the generator without introspection and without looking up the serializers of the
+ * addresses and attachments.
+ */
+public class CommonMailSerializer extends StdSerializer<CommonMail> {
+
+    private final AttachmentSerializer attachmentSerializer = new AttachmentSerializer();
+
+    public CommonMailSerializer() {
+        super(CommonMail.class);
+    }
+
+    @Override
+    public void serialize(CommonMail mail, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(mail);
+
+        if (mail.getFrom() != null) {
+            gen.writeFieldName("from");
+            AddressSerializer.write(mail.getFrom(), gen);
+        }
+
+        List<Address> to = mail.getTo();
+        if (to != null && !to.isEmpty()) {
+            gen.writeArrayFieldStart("to");
+            for (Address address : to) {
+                AddressSerializer.write(address, gen);
+            }
+            gen.writeEndArray();
+        }
+
+        writeIfNotEmpty(gen, "subject", mail.getSubject());
+        writeIfNotEmpty(gen, "text", mail.getText());
+        writeIfNotEmpty(gen, "html", mail.getHtml());
+
+        List<Attachment> attachments = mail.getAttachments();
+        if (attachments != null && !attachments.isEmpty()) {
+            gen.writeArrayFieldStart("attachments");
+            for (Attachment attachment : attachments) {
+                if (attachment == null) {
+                    gen.writeNull();
+                } else {
+                    attachmentSerializer.serialize(attachment, gen, provider);
+                }
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeEndObject();
+    }
+
+}
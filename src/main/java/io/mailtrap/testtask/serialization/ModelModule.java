@@ -0,0 +1,26 @@
+package io.mailtrap.testtask.serialization;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.BatchMail;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+
+/**
+ * Registers the hand-written serializers of the request models and deserializers of the responses to single emails,
+ * which replace bean introspection and the per-property inclusion checks of databind with straight-line code.
+ * Registered by {@link io.mailtrap.testtask.Mapper}. They produce the same JSON as the bean serializers.
+ */
+public class ModelModule extends SimpleModule {
+
+    public ModelModule() {
+        super("MailtrapModelModule");
+        addSerializer(CommonMail.class, new CommonMailSerializer());
+        addSerializer(Address.class, new AddressSerializer());
+        addSerializer(BatchMail.class, new BatchMailSerializer());
+        addDeserializer(SuccessResponse.class, ResponseDeserializer.SUCCESS);
+        addDeserializer(FailureResponse.class, ResponseDeserializer.FAILURE);
+    }
+
+}
@@ -0,0 +1,125 @@
+package io.mailtrap.testtask.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@link SuccessResponse} and {@link FailureResponse} straight from the parser, with the same results
+ * as the bean deserializer: unknown fields are skipped, {@code success} is coerced from numbers and strings,
+ * and scalar array items are read as strings.
+ *
+ * @param <T> type of the response
+ */
+public class ResponseDeserializer<T extends CommonResponse> extends StdDeserializer<T> {
+
+    public static final ResponseDeserializer<SuccessResponse> SUCCESS = new ResponseDeserializer<>(SuccessResponse.class);
+    public static final ResponseDeserializer<FailureResponse> FAILURE = new ResponseDeserializer<>(FailureResponse.class);
+
+    private ResponseDeserializer(Class<T> type) {
+        super(type);
+    }
+
+    @Override
+    public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        return read(parser);
+    }
+
+    /**
+     * Reads a response from the parser positioned at the start of the object or at its first field.
+     *
+     * @param parser JSON parser
+     * @return the response
+     * @throws IOException if the response can not be read or is not an object of the expected shape
+     */
+    @SuppressWarnings("unchecked")
+    public T read(JsonParser parser) throws IOException {
+        boolean success = false;
+        List<String> messageIds = null;
+        List<String> errors = null;
+
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("success".equals(name)) {
+                success = readBoolean(parser, value);
+            } else if ("message_ids".equals(name)) {
+                messageIds = readStrings(parser, value);
+            } else if ("errors".equals(name)) {
+                errors = readStrings(parser, value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw MismatchedInputException.from(parser, handledType(), "Expected a JSON object");
+        }
+
+        if (handledType() == SuccessResponse.class) {
+            var response = new SuccessResponse();
+            response.setSuccess(success);
+            response.setMessageIds(messageIds);
+            return (T) response;
+        }
+        var response = new FailureResponse();
+        response.setSuccess(success);
+        response.setErrors(errors);
+        return (T) response;
+    }
+
+    private boolean readBoolean(JsonParser parser, JsonToken value) throws IOException {
+        switch (value) {
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+            case VALUE_NULL:
+                return false;
+            case VALUE_NUMBER_INT:
+                return parser.getLongValue() != 0;
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if ("true".equalsIgnoreCase(text)) {
+                    return true;
+                }
+                if ("false".equalsIgnoreCase(text) || text.isEmpty()) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        throw MismatchedInputException.from(parser, boolean.class, "Cannot read `success` from " + value);
+    }
+
+    private List<String> readStrings(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.START_ARRAY) {
+            throw MismatchedInputException.from(parser, List.class, "Expected an array of strings");
+        }
+
+        var strings = new ArrayList<String>();
+        for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+            if (item == null || !item.isScalarValue()) {
+                throw MismatchedInputException.from(parser, String.class, "Expected an array of strings");
+            }
+            strings.add(item == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+        }
+        return strings;
+    }
+
+}
@@ -0,0 +1,28 @@
+package io.mailtrap.testtask.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requires an attachment to have either non-empty base64 content or a content source.
+ * The violation is reported on the {@code content} property, the same way {@code @NotEmpty} on it would be.
+ */
+@Documented
+@Constraint(validatedBy = AttachmentContentPresentValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AttachmentContentPresent {
+
+    String message() default "{jakarta.validation.constraints.NotEmpty.message}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+}
@@ -0,0 +1,26 @@
+package io.mailtrap.testtask.validation;
+
+import io.mailtrap.testtask.request.Attachment;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of {@link AttachmentContentPresent}.
+ */
+public class AttachmentContentPresentValidator implements ConstraintValidator<AttachmentContentPresent, Attachment> {
+
+    @Override
+    public boolean isValid(Attachment attachment, ConstraintValidatorContext context) {
+        if (attachment == null || attachment.getSource() != null
+                || (attachment.getContent() != null && !attachment.getContent().isEmpty())) {
+            return true;
+        }
+
+        context.disableDefaultConstraintViolation();
+        context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
+                .addPropertyNode("content")
+                .addConstraintViolation();
+        return false;
+    }
+
+}
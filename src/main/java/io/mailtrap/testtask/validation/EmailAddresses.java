@@ -0,0 +1,182 @@
+package io.mailtrap.testtask.validation;
+
+import java.net.IDN;
+import java.util.regex.Pattern;
+
+/**
+ * Email address check equivalent to the one of Hibernate Validator's {@code @Email}.
+ * <p>
+ * Plain ASCII addresses, which are the vast majority, are checked by scanning the characters once without allocations.
+ * Addresses with quoted local parts, IP literals or non-ASCII characters are checked with the same regular expressions
+ * and IDN conversion Hibernate Validator uses.
+ */
+final class EmailAddresses {
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_PART_LENGTH = 255;
+    private static final int MAX_DOMAIN_LABEL_LENGTH = 63;
+
+    private static final String LOCAL_PART_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]";
+    private static final String LOCAL_PART_INSIDE_QUOTES_ATOM = "(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\")";
+    private static final Pattern LOCAL_PART_PATTERN = Pattern.compile(
+            "(?:" + LOCAL_PART_ATOM + "+|\"" + LOCAL_PART_INSIDE_QUOTES_ATOM + "+\")" +
+                    "(?:\\." + "(?:" + LOCAL_PART_ATOM + "+|\"" + LOCAL_PART_INSIDE_QUOTES_ATOM + "+\")" + ")*",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private static final String DOMAIN_CHARS_WITHOUT_DASH = "[a-z\u0080-\uFFFF0-9!#$%&'*+/=?^_`{|}~]";
+    private static final String DOMAIN_LABEL = "(?:" + DOMAIN_CHARS_WITHOUT_DASH + "-*)*" + DOMAIN_CHARS_WITHOUT_DASH + "+";
+    private static final String DOMAIN = DOMAIN_LABEL + "+(?:\\." + DOMAIN_LABEL + "+)*";
+    private static final String IP_DOMAIN = "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}";
+    private static final String IP_V6_DOMAIN = "(?:(?:[0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,7}:|(?:[0-9a-fA-F]{1,4}:){1,6}:[0-9a-fA-F]{1,4}|(?:[0-9a-fA-F]{1,4}:){1,5}(?::[0-9a-fA-F]{1,4}){1,2}|(?:[0-9a-fA-F]{1,4}:){1,4}(?::[0-9a-fA-F]{1,4}){1,3}|(?:[0-9a-fA-F]{1,4}:){1,3}(?::[0-9a-fA-F]{1,4}){1,4}|(?:[0-9a-fA-F]{1,4}:){1,2}(?::[0-9a-fA-F]{1,4}){1,5}|[0-9a-fA-F]{1,4}:(?:(?::[0-9a-fA-F]{1,4}){1,6})|:(?:(?::[0-9a-fA-F]{1,4}){1,7}|:)|fe80:(?::[0-9a-fA-F]{0,4}){0,4}%[0-9a-zA-Z]{1,}|::(?:ffff(?::0{1,4}){0,1}:){0,1}(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])|(?:[0-9a-fA-F]{1,4}:){1,4}:(?:(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9])\\.){3}(?:25[0-5]|(?:2[0-4]|1{0,1}[0-9]){0,1}[0-9]))";
+    private static final Pattern EMAIL_DOMAIN_PATTERN = Pattern.compile(
+            DOMAIN + "|\\[" + IP_DOMAIN + "\\]|" + "\\[IPv6:" + IP_V6_DOMAIN + "\\]", Pattern.CASE_INSENSITIVE
+    );
+
+    private EmailAddresses() {
+    }
+
+    /**
+     * @param value email address, not empty
+     * @return true if the address is well-formed
+     */
+    static boolean isValid(String value) {
+        int at = value.lastIndexOf('@');
+        if (at < 0) {
+            return false;
+        }
+
+        switch (scanLocalPart(value, at)) {
+            case INVALID:
+                return false;
+            case UNKNOWN:
+                if (!LOCAL_PART_PATTERN.matcher(value.substring(0, at)).matches()) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+
+        switch (scanDomain(value, at + 1)) {
+            case VALID:
+                return true;
+            case INVALID:
+                return false;
+            default:
+                return isValidDomain(value.substring(at + 1));
+        }
+    }
+
+    /**
+     * Checks an unquoted ASCII local part - atoms of allowed characters separated by single dots.
+     */
+    private static Result scanLocalPart(String value, int end) {
+        if (end > MAX_LOCAL_PART_LENGTH) {
+            return Result.INVALID;
+        }
+
+        boolean atomStart = true;
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || c == '"') {
+                return Result.UNKNOWN;
+            }
+            if (c == '.') {
+                if (atomStart) {
+                    return Result.INVALID;
+                }
+                atomStart = true;
+            } else if (isLocalPartAtomChar(c)) {
+                atomStart = false;
+            } else {
+                return Result.INVALID;
+            }
+        }
+        return atomStart ? Result.INVALID : Result.VALID;
+    }
+
+    /**
+     * Checks an ASCII domain name - labels of allowed characters, which do not start or end with a dash,
+     * separated by single dots. A label longer than 63 characters is rejected the same way IDN conversion rejects it.
+     */
+    private static Result scanDomain(String value, int start) {
+        int length = value.length() - start;
+        if (length == 0) {
+            return Result.INVALID;
+        }
+        if (value.charAt(start) == '[') {
+            return Result.UNKNOWN;
+        }
+        if (length > MAX_DOMAIN_PART_LENGTH) {
+            return scanHasNonAscii(value, start) ? Result.UNKNOWN : Result.INVALID;
+        }
+
+        int labelLength = 0;
+        char previous = '.';
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return Result.UNKNOWN;
+            }
+            if (c == '.') {
+                if (previous == '.' || previous == '-') {
+                    return Result.INVALID;
+                }
+                labelLength = 0;
+            } else if (c == '-') {
+                if (previous == '.') {
+                    return Result.INVALID;
+                }
+                labelLength++;
+            } else if (isDomainChar(c)) {
+                labelLength++;
+            } else {
+                return Result.INVALID;
+            }
+            if (labelLength > MAX_DOMAIN_LABEL_LENGTH) {
+                return Result.INVALID;
+            }
+            previous = c;
+        }
+        return previous == '.' || previous == '-' ? Result.INVALID : Result.VALID;
+    }
+
+    private static boolean scanHasNonAscii(String value, int start) {
+        for (int i = start; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isValidDomain(String domain) {
+        if (domain.endsWith(".") || !EMAIL_DOMAIN_PATTERN.matcher(domain).matches()) {
+            return false;
+        }
+
+        try {
+            return IDN.toASCII(domain).length() <= MAX_DOMAIN_PART_LENGTH;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isLocalPartAtomChar(char c) {
+        return isAsciiLetterOrDigit(c) || "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0;
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isAsciiLetterOrDigit(c) || "!#$%&'*+/=?^_`{|}~".indexOf(c) >= 0;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private enum Result {
+        VALID, INVALID, UNKNOWN
+    }
+
+}
@@ -0,0 +1,123 @@
+package io.mailtrap.testtask.validation;
+
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.util.List;
+
+/**
+ * Validator hand-written for the constraints of {@link CommonMail}, {@link Address} and {@link Attachment}.
+ * <p>
+ * Checks the same {@code @NotNull}, {@code @NotEmpty}, {@code @Email}, {@code @Valid} and
+ * {@link AttachmentContentPresent} constraints as the Jakarta validator, without reflection and metadata lookups,
+ * and allocates only when a violation is found. Violations are reported with the same paths and
+ * the default English messages, in the order the fields are declared.
+ * <p>
+ * Has to be kept in sync with the constraint annotations of the request models.
+ */
+final class FastMailValidator implements MailValidator {
+
+    static final FastMailValidator INSTANCE = new FastMailValidator();
+
+    static final String NOT_NULL = "must not be null";
+    static final String NOT_EMPTY = "must not be empty";
+    static final String EMAIL = "must be a well-formed email address";
+
+    private FastMailValidator() {
+    }
+
+    @Override
+    public String validate(CommonMail mail) {
+        StringBuilder violations = null;
+
+        if (mail.getFrom() == null) {
+            violations = append(violations, "from", -1, null, NOT_NULL);
+        } else {
+            violations = validateAddress(violations, mail.getFrom(), "from", -1);
+        }
+
+        List<Address> to = mail.getTo();
+        if (to == null || to.isEmpty()) {
+            violations = append(violations, "to", -1, null, NOT_EMPTY);
+        } else {
+            int index = 0;
+            for (Address address : to) {
+                if (address != null) {
+                    violations = validateAddress(violations, address, "to", index);
+                }
+                index++;
+            }
+        }
+
+        if (isEmpty(mail.getSubject())) {
+            violations = append(violations, "subject", -1, null, NOT_EMPTY);
+        }
+
+        List<Attachment> attachments = mail.getAttachments();
+        if (attachments != null) {
+            int index = 0;
+            for (Attachment attachment : attachments) {
+                if (attachment != null) {
+                    violations = validateAttachment(violations, attachment, index);
+                }
+                index++;
+            }
+        }
+
+        return violations == null ? null : violations.toString();
+    }
+
+    private static StringBuilder validateAddress(StringBuilder violations, Address address, String property, int index) {
+        String email = address.getEmail();
+        if (isEmpty(email)) {
+            return append(violations, property, index, "email", NOT_EMPTY);
+        }
+        if (!EmailAddresses.isValid(email)) {
+            return append(violations, property, index, "email", EMAIL);
+        }
+        return violations;
+    }
+
+    private static StringBuilder validateAttachment(StringBuilder violations, Attachment attachment, int index) {
+        if (attachment.getSource() == null && isEmpty(attachment.getContent())) {
+            violations = append(violations, "attachments", index, "content", NOT_EMPTY);
+        }
+        if (isEmpty(attachment.getFilename())) {
+            violations = append(violations, "attachments", index, "filename", NOT_EMPTY);
+        }
+        return violations;
+    }
+
+    /**
+     * Appends a violation formatted the same way as a Jakarta property path, e.g. {@code to[1].email=must not be empty}.
+     *
+     * @param violations    violations found so far, {@code null} if none
+     * @param property      property of the mail
+     * @param index         index of the element for list properties, -1 otherwise
+     * @param childProperty property of the cascaded object, {@code null} if the violation is on the mail property itself
+     * @param message       violation message
+     * @return builder holding all violations
+     */
+    private static StringBuilder append(StringBuilder violations, String property, int index, String childProperty, String message) {
+        if (violations == null) {
+            violations = new StringBuilder();
+        } else {
+            violations.append("; ");
+        }
+
+        violations.append(property);
+        if (index >= 0) {
+            violations.append('[').append(index).append(']');
+        }
+        if (childProperty != null) {
+            violations.append('.').append(childProperty);
+        }
+        return violations.append('=').append(message);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+}
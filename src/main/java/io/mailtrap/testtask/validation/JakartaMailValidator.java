@@ -0,0 +1,56 @@
+package io.mailtrap.testtask.validation;
+
+import io.mailtrap.testtask.request.CommonMail;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+
+import java.util.stream.Collectors;
+
+/**
+ * Validates mails with a generic Jakarta Bean Validation validator.
+ * <p>
+ * The default validator is bootstrapped once per JVM, on first use. It interpolates messages by
+ * {@link ParameterMessageInterpolator}, which does not support EL expressions in messages, so the Expression Language
+ * implementation is never loaded. The messages of the constraints used by the request models do not contain any.
+ */
+class JakartaMailValidator implements MailValidator {
+
+    private final Validator validator;
+
+    private JakartaMailValidator() {
+        // Wrapped into try-with-resources to ensure that factory's resources are properly closed
+        try (ValidatorFactory factory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()) {
+            this.validator = factory.getValidator();
+        }
+    }
+
+    JakartaMailValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * @return validator with the default Jakarta Bean Validation provider, shared by all clients
+     */
+    static JakartaMailValidator shared() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public String validate(CommonMail mail) {
+        String violations = validator.validate(mail).stream()
+                .map(violation -> violation.getPropertyPath().toString() + "=" + violation.getMessage())
+                .collect(Collectors.joining("; "));
+
+        return violations.isEmpty() ? null : violations;
+    }
+
+    private static final class Holder {
+        private static final JakartaMailValidator INSTANCE = new JakartaMailValidator();
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.mailtrap.testtask.validation;
+
+import io.mailtrap.testtask.request.CommonMail;
+import jakarta.validation.Validator;
+
+/**
+ * Validates mails against the constraints declared on the request models.
+ */
+public interface MailValidator {
+
+    /**
+     * Validates the mail and its cascaded addresses and attachments.
+     *
+     * @param mail mail to validate, not null
+     * @return violations formatted as {@code path=message} and joined with {@code "; "}, or {@code null} if the mail is valid
+     */
+    String validate(CommonMail mail);
+
+    /**
+     * @return validator specialized for the request models, which allocates only when a violation is found
+     * @see FastMailValidator
+     */
+    static MailValidator fast() {
+        return FastMailValidator.INSTANCE;
+    }
+
+    /**
+     * @return validator delegating to the default Jakarta Bean Validation provider. The provider is bootstrapped
+     * once, on the first call, and the validator is shared
+     */
+    static MailValidator jakarta() {
+        return JakartaMailValidator.shared();
+    }
+
+    /**
+     * @param validator Jakarta Bean Validation validator to delegate to
+     * @return validator delegating to the given Jakarta validator
+     */
+    static MailValidator jakarta(Validator validator) {
+        return new JakartaMailValidator(validator);
+    }
+
+}
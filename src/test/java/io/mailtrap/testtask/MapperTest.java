@@ -0,0 +1,83 @@
+package io.mailtrap.testtask;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.BatchMail;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.mailtrap.testtask.TestMails.createTestMailWithAttachment;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapperTest {
+
+    private final ObjectMapper databind = Mapper.databindBuilder().build();
+
+    @Test
+    void writeValueAsBytes_Mails_SameJsonAsDatabind() throws IOException {
+        // Set up test data
+        CommonMail full = createTestMailWithAttachment();
+        full.getFrom().setName("Sender \"Quoted\" Ünïcødé 📧");
+        full.setHtml("<p>line\nbreak\ttab</p>");
+
+        CommonMail sparse = new CommonMail();
+        sparse.setFrom(new Address());
+        sparse.setTo(Arrays.asList(createAddress("recipient@example.com"), null));
+        sparse.setSubject("");
+        sparse.setText("Text");
+        sparse.setAttachments(List.of());
+
+        CommonMail nullAttachment = createTestMailWithAttachment();
+        nullAttachment.setAttachments(Arrays.asList(null, new Attachment()));
+
+        var batch = new BatchMail();
+        batch.setRequests(List.of(full, sparse));
+
+        // Assert
+        for (Object value : List.of(full, sparse, nullAttachment, new CommonMail(), batch, new BatchMail(), full.getFrom())) {
+            byte[] json = Mapper.get().writeValueAsBytes(value);
+            assertArrayEquals(databind.writeValueAsBytes(value), json, () -> new String(json));
+        }
+    }
+
+    @Test
+    void readValue_Responses_SameResponsesAsDatabind() throws IOException {
+        // Set up test data
+        var responses = List.of(
+                "{\"success\": true, \"message_ids\": [\"first\", null, 2]}",
+                "{\"ignored\": {\"nested\": [{}]}, \"success\": \"true\"}",
+                "{\"success\": 0, \"errors\": null}",
+                "{}");
+
+        // Assert
+        for (String response : responses) {
+            assertEquals(databind.readValue(response, SuccessResponse.class).toJson(),
+                    Mapper.get().readValue(response, SuccessResponse.class).toJson(), response);
+            assertEquals(databind.readValue(response, FailureResponse.class).toJson(),
+                    Mapper.get().readValue(response, FailureResponse.class).toJson(), response);
+        }
+        assertEquals(List.of("'to' is required", "42"),
+                Mapper.get().readValue("{\"success\": false, \"errors\": [\"'to' is required\", 42]}", FailureResponse.class).getErrors());
+    }
+
+    @Test
+    void readValue_InvalidResponse_ThrowsIOException() {
+        // Assert
+        assertThrows(IOException.class, () -> Mapper.get().readValue("{\"success\": [true]}", SuccessResponse.class));
+        assertThrows(IOException.class, () -> Mapper.get().readValue("{\"errors\": \"single\"}", FailureResponse.class));
+        assertThrows(IOException.class, () -> Mapper.get().readValue("{\"success\": true", SuccessResponse.class));
+    }
+
+    private static Address createAddress(String email) {
+        var address = new Address();
+        address.setEmail(email);
+        return address;
+    }
+}
@@ -0,0 +1,66 @@
+package io.mailtrap.testtask;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.mailtrap.testtask.request.AbstractModel;
+import io.mailtrap.testtask.response.BatchItemResponse;
+import io.mailtrap.testtask.response.BatchResponse;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NativeImageConfigTest {
+
+    private static final String REFLECT_CONFIG =
+            "/META-INF/native-image/io.mailtrap.testtask/java-sdk-test-task/reflect-config.json";
+
+    /**
+     * Classes of the model packages which are never read or written by Jackson
+     */
+    private static final Set<String> NOT_SERIALIZED = Set.of(
+            "io.mailtrap.testtask.request.MailTemplate", "io.mailtrap.testtask.request.ByteBufferInputStream");
+
+    @Test
+    void reflectConfig_AllModels_Registered() throws IOException, URISyntaxException, ClassNotFoundException {
+        // Set up test data
+        Set<String> registered = new HashSet<>();
+        try (InputStream config = getClass().getResourceAsStream(REFLECT_CONFIG)) {
+            assertNotNull(config);
+            for (JsonNode entry : Mapper.get().readTree(config)) {
+                registered.add(entry.get("name").asText());
+            }
+        }
+
+        // Assert - every registered class exists, and every class of the request and response packages is registered
+        for (String name : registered) {
+            assertDoesNotThrow(() -> Class.forName(name), name);
+        }
+        Set<String> models = new HashSet<>();
+        // the directories of the main classes, the test classes of the same packages are elsewhere
+        for (Class<?> anchor : new Class<?>[]{AbstractModel.class, CommonResponse.class}) {
+            String packageName = anchor.getPackageName();
+            var directory = new File(anchor.getResource(anchor.getSimpleName() + ".class").toURI()).getParentFile();
+            for (String file : directory.list((dir, name) -> name.endsWith(".class") && !name.contains("$"))) {
+                var type = Class.forName(packageName + "." + file.substring(0, file.length() - ".class".length()));
+                if (!type.isInterface() && !NOT_SERIALIZED.contains(type.getName())) {
+                    models.add(type.getName());
+                }
+            }
+        }
+        assertTrue(models.containsAll(List.of(CommonResponse.class.getName(), SuccessResponse.class.getName(),
+                FailureResponse.class.getName(), BatchResponse.class.getName(), BatchItemResponse.class.getName())));
+        for (String model : models) {
+            assertTrue(registered.contains(model), model);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.mailtrap.testtask;
+
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.util.List;
+
+/**
+ * Sample mails shared by the tests of the module
+ */
+public final class TestMails {
+
+    private TestMails() {
+    }
+
+    /**
+     * @return valid mail with a subject and a text to {@code recipient@example.com}
+     */
+    public static CommonMail createTestMail() {
+        return createTestMail("recipient@example.com");
+    }
+
+    /**
+     * @param recipient email address of the recipient
+     * @return valid mail with a subject and a text
+     */
+    public static CommonMail createTestMail(String recipient) {
+        var mail = new CommonMail();
+
+        Address from = new Address();
+        from.setEmail("sender@example.com");
+
+        Address to = new Address();
+        to.setEmail(recipient);
+
+        mail.setFrom(from);
+        mail.setTo(List.of(to));
+        mail.setSubject("Sample subject");
+        mail.setText("Sample mail text");
+
+        return mail;
+    }
+
+    /**
+     * @return valid mail to {@code recipient@example.com} with a text, an HTML body and a base64-encoded attachment
+     */
+    public static CommonMail createTestMailWithAttachment() {
+        var mail = createTestMail();
+
+        Attachment attachment = new Attachment();
+        attachment.setFilename("attachment.txt");
+        attachment.setType("text/plain");
+        attachment.setContent("c2FtcGxlIHRleHQgaW4gdGV4dCBmaWxl");
+
+        mail.setHtml("<html><body>Test HTML</body></html>");
+        mail.setAttachments(List.of(attachment));
+
+        return mail;
+    }
+
+}
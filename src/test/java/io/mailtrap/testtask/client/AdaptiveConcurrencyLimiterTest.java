@@ -0,0 +1,84 @@
+package io.mailtrap.testtask.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_LimitReached_Rejects() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        // Assert
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.onIgnored();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void onSuccess_LowLatencyAtFullUse_IncreasesLimit() {
+        var limiter = new AdaptiveConcurrencyLimiter(4, 1, 10);
+        long now = System.nanoTime();
+
+        // Perform call - every round keeps all slots busy
+        for (int round = 0; round < 50; round++) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                assertTrue(limiter.tryAcquire());
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.onSuccess(now, 10 * MILLISECOND);
+            }
+        }
+
+        // Assert
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void onSuccess_LatencyRises_DecreasesLimitOncePerRoundTrip() {
+        var limiter = new AdaptiveConcurrencyLimiter(20, 1, 20);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        limiter.tryAcquire();
+        limiter.onSuccess(now, 10 * MILLISECOND);
+
+        // Perform call - two slow responses within one round trip
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.onSuccess(now, 50 * MILLISECOND);
+        limiter.onSuccess(now + MILLISECOND, 50 * MILLISECOND);
+
+        // Assert
+        assertEquals(18, limiter.getLimit());
+
+        // Perform call - slow response after the round trip
+        limiter.tryAcquire();
+        limiter.onSuccess(now + 100 * MILLISECOND, 50 * MILLISECOND);
+
+        // Assert
+        assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    void onDropped_RepeatedFailures_DecreasesToMinimum() {
+        var limiter = new AdaptiveConcurrencyLimiter(10, 2, 10);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+
+        // Perform call
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.onDropped(now + i);
+        }
+
+        // Assert
+        assertEquals(2, limiter.getLimit());
+    }
+}
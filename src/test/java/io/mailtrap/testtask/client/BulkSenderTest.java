@@ -0,0 +1,114 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkSenderTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void send_ManyMails_NeverExceedsMaxInFlight() {
+        // Set up fake client
+        var client = new DelayedMailtrapClient();
+        var results = new ArrayList<SendResult>();
+
+        // Perform call
+        new BulkSender(client, 8).send(Stream.generate(CommonMail::new).limit(200), results::add);
+
+        // Assert
+        assertEquals(200, results.size());
+        assertTrue(client.maxObservedInFlight.get() <= 8);
+        assertTrue(results.stream().allMatch(SendResult::isSuccess));
+    }
+
+    @Test
+    void sendOrdered_ManyMails_ResultsInSourceOrder() {
+        // Set up fake client
+        var client = new DelayedMailtrapClient();
+        var results = new ArrayList<SendResult>();
+
+        // Perform call
+        new BulkSender(client, 16).sendOrdered(Stream.generate(CommonMail::new).limit(300), results::add);
+
+        // Assert
+        assertEquals(300, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+    }
+
+    @Test
+    void send_FailedMail_ResultHoldsUnwrappedError() {
+        // Set up fake client
+        var client = new DelayedMailtrapClient() {
+            @Override
+            public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+                return CompletableFuture.supplyAsync(() -> {
+                    throw new InvalidRequestBodyException("Mail must not be null");
+                }, executor);
+            }
+        };
+        var results = new ArrayList<SendResult>();
+
+        // Perform call
+        new BulkSender(client, 2).send(List.of(new CommonMail()), results::add);
+
+        // Assert
+        assertFalse(results.getFirst().isSuccess());
+        assertInstanceOf(InvalidRequestBodyException.class, results.getFirst().getError());
+        assertTrue(results.getFirst().getMessageIds().isEmpty());
+    }
+
+    private class DelayedMailtrapClient implements MailtrapClient {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObservedInFlight = new AtomicInteger();
+
+        @Override
+        public CommonResponse send(CommonMail mail) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+            return sendAsync(mail, Runnable::run);
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+            maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            var future = new CompletableFuture<CommonResponse>();
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                var response = new SuccessResponse();
+                response.setSuccess(true);
+                response.setMessageIds(List.of("id"));
+                future.complete(response);
+            }, ThreadLocalRandom.current().nextInt(1000), TimeUnit.MICROSECONDS);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.mailtrap.testtask.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(CircuitBreakerConfig.builder()
+            .windowSize(10)
+            .minimumCalls(4)
+            .failureRateThreshold(0.5)
+            .slowCallRateThreshold(0.5)
+            .slowCallDuration(Duration.ofSeconds(1))
+            .openDuration(Duration.ofSeconds(30))
+            .halfOpenCalls(2)
+            .build());
+
+    @Test
+    void onResult_FailureRateReached_OpensAndRejects() {
+        long now = System.nanoTime();
+
+        // Perform call
+        record(now, 2, 0, false);
+        record(now, 2, 0, true);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission(now + SECOND));
+    }
+
+    @Test
+    void onResult_SlowCallRateReached_Opens() {
+        long now = System.nanoTime();
+
+        // Perform call
+        record(now, 3, 0, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        record(now, 3, 2 * SECOND, false);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void onResult_OldSuccessesOutsideWindow_RateOfLatestCalls() {
+        long now = System.nanoTime();
+        record(now, 10, 0, false);
+
+        // Perform call
+        record(now, 4, 0, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        record(now, 1, 0, true);
+
+        // Assert - 5 of the last 10 calls have failed
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void tryAcquirePermission_OpenDurationPassed_ProbesAndCloses() {
+        long now = System.nanoTime();
+        record(now, 4, 0, true);
+        long later = now + 31 * SECOND;
+
+        // Perform call
+        long first = permit(later);
+        long second = permit(later);
+
+        // Assert - only the probes are let through until they succeed
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission(later));
+        circuitBreaker.onResult(later, first, 0, false);
+        circuitBreaker.onResult(later, second, 0, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        permit(later);
+    }
+
+    @Test
+    void onResult_ProbeFailed_OpensAgain() {
+        long now = System.nanoTime();
+        record(now, 4, 0, true);
+        long later = now + 31 * SECOND;
+        long probe = permit(later);
+
+        // Perform call
+        circuitBreaker.onResult(later, probe, 0, true);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission(later + SECOND));
+    }
+
+    @Test
+    void onResult_PermittedWhileClosed_NotCountedAsProbe() {
+        long now = System.nanoTime();
+        long stale = permit(now);
+        record(now, 4, 0, true);
+        long later = now + 31 * SECOND;
+        long probe = permit(later);
+
+        // Perform call - the request sent before the breaker opened fails late, then the probe succeeds
+        circuitBreaker.onResult(later, stale, 2 * SECOND, true);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onResult(later, probe, 0, false);
+        circuitBreaker.onResult(later, permit(later), 0, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void onIgnored_PermittedWhileClosed_AddsNoProbePermit() {
+        long now = System.nanoTime();
+        long stale = permit(now);
+        record(now, 4, 0, true);
+        long later = now + 31 * SECOND;
+        permit(later);
+        permit(later);
+
+        // Perform call
+        circuitBreaker.onIgnored(stale);
+
+        // Assert
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission(later));
+    }
+
+    @Test
+    void onIgnored_Probe_PermitReturned() {
+        long now = System.nanoTime();
+        record(now, 4, 0, true);
+        long later = now + 31 * SECOND;
+        long probe = permit(later);
+        permit(later);
+
+        // Perform call
+        circuitBreaker.onIgnored(probe);
+
+        // Assert
+        permit(later);
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission(later));
+    }
+
+    private void record(long now, int calls, long nanos, boolean failed) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.onResult(now, permit(now), nanos, failed);
+        }
+    }
+
+    private long permit(long now) {
+        long permission = circuitBreaker.tryAcquirePermission(now);
+        assertNotEquals(CircuitBreaker.REJECTED, permission);
+        return permission;
+    }
+}
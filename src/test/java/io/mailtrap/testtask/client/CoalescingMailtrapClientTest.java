@@ -0,0 +1,163 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import io.mailtrap.testtask.validation.MailValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.mailtrap.testtask.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CoalescingMailtrapClientTest {
+
+    private SendMailMailtrapClient mailClient;
+    private HttpClient mockHttpClient;
+
+    @BeforeEach
+    void setUp() {
+        mockHttpClient = Mockito.mock(HttpClient.class);
+        mailClient = new SendMailMailtrapClient("dummyToken", 12345);
+        mailClient.setHttpClient(mockHttpClient);
+    }
+
+    @Test
+    void sendAsync_BatchFilledUp_SplitsResponsesBetweenCallers() throws ExecutionException, InterruptedException {
+        // Set up test data
+        var client = new CoalescingMailtrapClient(mailClient, 2, Duration.ofHours(1));
+
+        // Set up mocks
+        mockBatchResponse("{\"success\": true, \"responses\": ["
+                + "{\"success\": true, \"message_ids\": [\"first_message_id\"]},"
+                + "{\"success\": false, \"errors\": [\"'to' address is invalid\"]}]}");
+
+        // Perform calls
+        CompletableFuture<CommonResponse> first = client.sendAsync(createTestMail("first@example.com"));
+        CompletableFuture<CommonResponse> second = client.sendAsync(createTestMail("second@example.com"));
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, first.get());
+        assertEquals(List.of("first_message_id"), ((SuccessResponse) first.get()).getMessageIds());
+        assertInstanceOf(FailureResponse.class, second.get());
+        assertEquals(List.of("'to' address is invalid"), ((FailureResponse) second.get()).getErrors());
+
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(1)).sendAsync(request.capture(), Mockito.any(HttpResponse.BodyHandler.class));
+        assertEquals("https://sandbox.api.mailtrap.io/api/batch/12345", request.getValue().uri().toString());
+    }
+
+    @Test
+    void send_DelayPassed_SendsPartialBatch() {
+        // Set up test data
+        var client = new CoalescingMailtrapClient(mailClient, 100, Duration.ofMillis(10));
+
+        // Set up mocks
+        mockBatchResponse("{\"success\": true, \"responses\": [{\"success\": true, \"message_ids\": [\"message_id\"]}]}");
+
+        // Perform call
+        CommonResponse response = client.send(createTestMail("recipient@example.com"));
+
+        // Assert
+        assertEquals(List.of("message_id"), ((SuccessResponse) response).getMessageIds());
+    }
+
+    @Test
+    void sendAsync_InvalidMail_FailsOnlyInvalidMail() {
+        // Set up test data
+        var client = new CoalescingMailtrapClient(mailClient, 100, Duration.ofHours(1));
+        CommonMail invalid = createTestMail("recipient@example.com");
+        invalid.setSubject(null);
+
+        // Perform call
+        CompletableFuture<CommonResponse> future = client.sendAsync(invalid);
+
+        // Assert
+        var exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(InvalidRequestBodyException.class, exception.getCause());
+        verify(mockHttpClient, never()).sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void sendAsync_BatchFailed_FailsAllCallers() {
+        // Set up test data
+        var client = new CoalescingMailtrapClient(mailClient, 100, Duration.ofHours(1));
+
+        // Set up mocks
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")));
+
+        // Perform calls
+        CompletableFuture<CommonResponse> first = client.sendAsync(createTestMail("first@example.com"));
+        CompletableFuture<CommonResponse> second = client.sendAsync(createTestMail("second@example.com"));
+        client.flush();
+
+        // Assert
+        for (CompletableFuture<CommonResponse> future : List.of(first, second)) {
+            var exception = assertThrows(ExecutionException.class, future::get);
+            assertInstanceOf(BaseMailtrapException.class, exception.getCause());
+            assertInstanceOf(IOException.class, exception.getCause().getCause());
+        }
+    }
+
+    @Test
+    void sendAsync_DefaultExecutor_UsesWrappedClientExecutorAndValidatesOnce() throws ExecutionException, InterruptedException {
+        // Set up test data
+        var validations = new AtomicInteger();
+        var executions = new AtomicInteger();
+        MailValidator validator = mail -> {
+            validations.incrementAndGet();
+            return MailValidator.fast().validate(mail);
+        };
+        Executor executor = command -> {
+            executions.incrementAndGet();
+            command.run();
+        };
+        mailClient = new SendMailMailtrapClient("dummyToken", 12345, mockHttpClient, null, executor, validator);
+        var client = new CoalescingMailtrapClient(mailClient, 2, Duration.ofHours(1));
+
+        // Set up mocks
+        mockBatchResponse("{\"success\": true, \"responses\": ["
+                + "{\"success\": true, \"message_ids\": [\"first_message_id\"]},"
+                + "{\"success\": true, \"message_ids\": [\"second_message_id\"]}]}");
+
+        // Perform calls
+        CompletableFuture<CommonResponse> first = client.sendAsync(createTestMail("first@example.com"));
+        CompletableFuture<CommonResponse> second = client.sendAsync(createTestMail("second@example.com"));
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, first.get());
+        assertInstanceOf(SuccessResponse.class, second.get());
+        assertEquals(2, validations.get());
+        assertTrue(executions.get() > 0);
+    }
+
+    private void mockBatchResponse(String body) {
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(body.getBytes());
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    }
+}
@@ -0,0 +1,192 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.metrics.InMemorySendMetrics;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.mailtrap.testtask.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DedupCacheTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void fingerprint_EqualMails_SameFingerprint() {
+        // Set up test data
+        var cache = new DedupCache();
+        var keyed = new DedupCache(DedupConfig.builder().keyFunction(CommonMail::getSubject).build());
+        CommonMail other = createTestMail();
+        other.setText("Other text");
+        CommonMail noSubject = createTestMail();
+        noSubject.setSubject(null);
+
+        // Perform calls and assert
+        assertEquals(cache.fingerprint(createTestMail()), cache.fingerprint(createTestMail()));
+        assertNotEquals(cache.fingerprint(createTestMail()), cache.fingerprint(other));
+        assertEquals(keyed.fingerprint(createTestMail()), keyed.fingerprint(other));
+        assertEquals(0, keyed.fingerprint(noSubject));
+    }
+
+    @Test
+    void fingerprint_StreamedAttachment_NeverDeduplicatedAndSourceNotRead() {
+        // Set up test data
+        var cache = new DedupCache();
+        var keyed = new DedupCache(DedupConfig.builder().keyFunction(CommonMail::getSubject).build());
+        var opened = new AtomicInteger();
+        CommonMail mail = createTestMail();
+        mail.setAttachments(List.of(Attachment.fromStream("report.csv", () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(new byte[0]);
+        })));
+
+        // Perform calls and assert
+        assertEquals(0, cache.fingerprint(mail));
+        assertNotEquals(0, keyed.fingerprint(mail));
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    void fingerprint_InlineContentWithSameHashCode_DifferentFingerprints() {
+        // Set up test data
+        var cache = new DedupCache();
+        CommonMail first = createTestMail();
+        first.setAttachments(List.of(inline("Aa")));
+        CommonMail second = createTestMail();
+        second.setAttachments(List.of(inline("BB")));
+
+        // Perform calls and assert
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(cache.fingerprint(first), cache.fingerprint(second));
+    }
+
+    @Test
+    void send_DuplicateWhileOriginalInFlight_WaitsForOriginalResponse() throws Exception {
+        // Set up test data
+        var cache = new DedupCache();
+        var metrics = new InMemorySendMetrics();
+        var sends = new AtomicInteger();
+        var sending = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var response = new SuccessResponse();
+        response.setSuccess(true);
+        var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // Perform calls
+            Future<CommonResponse> original = executor.submit(() -> cache.send(42, () -> {
+                sends.incrementAndGet();
+                sending.countDown();
+                await(release);
+                return response;
+            }, metrics));
+            sending.await();
+            var duplicate = CompletableFuture.supplyAsync(() -> cache.send(42, () -> {
+                sends.incrementAndGet();
+                return new SuccessResponse();
+            }, metrics));
+            while (metrics.getDeduplications() == 0) {
+                Thread.sleep(1);
+            }
+            assertFalse(duplicate.isDone());
+            release.countDown();
+
+            // Assert
+            assertSame(response, original.get(5, TimeUnit.SECONDS));
+            assertSame(response, duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, sends.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sendAsync_DuplicateWhileOriginalInFlight_CompletesWithOriginalResponse() {
+        // Set up test data
+        var cache = new DedupCache();
+        var metrics = new InMemorySendMetrics();
+        var sent = new CompletableFuture<CommonResponse>();
+        var sends = new AtomicInteger();
+        var response = new SuccessResponse();
+        response.setSuccess(true);
+
+        // Perform calls
+        CompletableFuture<CommonResponse> original = cache.sendAsync(42, () -> {
+            sends.incrementAndGet();
+            return sent;
+        }, metrics);
+        CompletableFuture<CommonResponse> duplicate = cache.sendAsync(42, () -> {
+            sends.incrementAndGet();
+            return new CompletableFuture<>();
+        }, metrics);
+        assertFalse(duplicate.isDone());
+        duplicate.cancel(false);
+        CompletableFuture<CommonResponse> another = cache.sendAsync(42, CompletableFuture::new, metrics);
+        sent.complete(response);
+
+        // Assert - cancelling a duplicate does not affect the original send or the other duplicates
+        assertSame(response, original.join());
+        assertSame(response, another.join());
+        assertEquals(1, sends.get());
+        assertEquals(2, metrics.getDeduplications());
+    }
+
+    @Test
+    void putIfAbsent_WindowPassed_ForgetsMail() {
+        // Set up test data
+        var cache = new DedupCache(DedupConfig.builder().window(Duration.ofSeconds(10)).build());
+        var original = new CompletableFuture<CommonResponse>();
+        var duplicate = new CompletableFuture<CommonResponse>();
+
+        // Perform calls and assert
+        assertNull(cache.putIfAbsent(42, original, 0));
+        assertSame(original, cache.putIfAbsent(42, duplicate, 9 * SECOND));
+        assertEquals(1, cache.size(9 * SECOND));
+        assertEquals(0, cache.size(10 * SECOND));
+        assertNull(cache.putIfAbsent(42, duplicate, 10 * SECOND));
+    }
+
+    @Test
+    void putIfAbsent_MaximumSizeReached_ReplacesMailClosestToExpiry() {
+        // Set up test data
+        var cache = new DedupCache(DedupConfig.builder().maximumSize(4).window(Duration.ofSeconds(10)).build());
+
+        // Perform calls
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.putIfAbsent(i + 1, new CompletableFuture<>(), i * SECOND));
+        }
+
+        // Assert
+        assertEquals(4, cache.size(5 * SECOND));
+        assertNull(cache.putIfAbsent(1, new CompletableFuture<>(), 5 * SECOND));
+        assertNotNull(cache.putIfAbsent(5, new CompletableFuture<>(), 5 * SECOND));
+    }
+
+    private static Attachment inline(String content) {
+        var attachment = new Attachment();
+        attachment.setFilename("note.txt");
+        attachment.setContent(content);
+        return attachment;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.validation.MailValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ForkJoinPool;
+
+import static io.mailtrap.testtask.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MailtrapClientRegistryTest {
+
+    private HttpClient mockHttpClient;
+    private MailtrapClientRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        mockHttpClient = Mockito.mock(HttpClient.class);
+        registry = new MailtrapClientRegistry(mockHttpClient, null, ForkJoinPool.commonPool(), MailValidator.fast());
+    }
+
+    @Test
+    void register_TwoTenants_SendThroughSharedHttpClientWithOwnCredentials() throws IOException, InterruptedException {
+        // Set up test data
+        registry.register("first", TenantConfig.builder().token("first-token").inboxId(1).build());
+        registry.register("second", TenantConfig.builder().token("second-token").sandboxEnvironment(false).build());
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenAnswer(invocation -> new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        registry.get("first").send(createTestMail());
+        registry.get("second").send(createTestMail());
+
+        // Assert
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(2)).send(requests.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        var first = requests.getAllValues().get(0);
+        var second = requests.getAllValues().get(1);
+        assertEquals("Bearer first-token", first.headers().firstValue("Authorization").orElseThrow());
+        assertTrue(first.uri().toString().endsWith("/api/send/1"));
+        assertEquals("Bearer second-token", second.headers().firstValue("Authorization").orElseThrow());
+        assertEquals("send.api.mailtrap.io", second.uri().getHost());
+    }
+
+    @Test
+    void register_RegisteredTenant_ReplacesClient() {
+        // Perform call
+        var previous = registry.register("tenant", TenantConfig.builder().token("old-token").build());
+        var current = registry.register("tenant", TenantConfig.builder().token("new-token").permitsPerSecond(5).build());
+
+        // Assert
+        assertNotSame(previous, current);
+        assertSame(current, registry.get("tenant"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void get_RemovedTenant_ThrowsIllegalArgumentException() {
+        // Set up test data
+        registry.register("tenant", TenantConfig.builder().token("token").build());
+
+        // Perform call
+        assertTrue(registry.remove("tenant"));
+
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> registry.get("tenant"));
+        assertFalse(registry.remove("tenant"));
+    }
+}
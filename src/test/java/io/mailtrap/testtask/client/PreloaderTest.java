@@ -0,0 +1,59 @@
+package io.mailtrap.testtask.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import io.mailtrap.testtask.Mapper;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PreloaderTest {
+
+    private DefaultSerializerProvider serializers;
+    private Map<JavaType, ?> rootDeserializers;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws ReflectiveOperationException {
+        // the caches are shared by every test of the JVM, start from empty ones
+        serializers = (DefaultSerializerProvider) Mapper.get().getSerializerProvider();
+        serializers.flushCachedSerializers();
+        var field = ObjectMapper.class.getDeclaredField("_rootDeserializers");
+        field.setAccessible(true);
+        rootDeserializers = (Map<JavaType, ?>) field.get(Mapper.get());
+        rootDeserializers.clear();
+    }
+
+    @Test
+    void preloadAsync_SharedRuntime_WarmsSerializers() {
+        // Perform call
+        var preloaded = Preloader.preloadAsync();
+
+        // Assert
+        assertDoesNotThrow(() -> preloaded.get(30, TimeUnit.SECONDS));
+        assertWarmed();
+    }
+
+    @Test
+    void preload_SharedRuntime_WarmsSerializers() {
+        // Perform call
+        Preloader.preload();
+
+        // Assert
+        assertWarmed();
+    }
+
+    private void assertWarmed() {
+        var types = Mapper.get().getTypeFactory();
+        assertTrue(serializers.cachedSerializersCount() > 0);
+        assertTrue(rootDeserializers.containsKey(types.constructType(SuccessResponse.class)));
+        assertTrue(rootDeserializers.containsKey(types.constructType(FailureResponse.class)));
+    }
+}
@@ -0,0 +1,143 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static io.mailtrap.testtask.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class PrioritySchedulerTest {
+
+    private MailtrapClient mockClient;
+    private List<CommonMail> sent;
+    private List<CompletableFuture<CommonResponse>> pending;
+
+    @BeforeEach
+    void setUp() {
+        mockClient = Mockito.mock(MailtrapClient.class);
+        sent = new ArrayList<>();
+        pending = new ArrayList<>();
+        when(mockClient.sendAsync(Mockito.any(CommonMail.class))).thenAnswer(invocation -> {
+            var future = new CompletableFuture<CommonResponse>();
+            sent.add(invocation.getArgument(0));
+            pending.add(future);
+            return future;
+        });
+    }
+
+    @Test
+    void submit_StrictPriority_DispatchesHighLaneBeforeQueuedBulk() {
+        // Set up test data
+        var scheduler = new PriorityScheduler(mockClient, 1, PriorityScheduler.DispatchPolicy.STRICT_PRIORITY, List.of(
+                LaneConfig.builder().name("transactional").build(),
+                LaneConfig.builder().name("bulk").build()));
+        CommonMail first = createTestMail("first@example.com");
+        CommonMail campaign = createTestMail("campaign@example.com");
+        CommonMail reset = createTestMail("reset@example.com");
+
+        // Perform calls
+        scheduler.submit("bulk", first);
+        scheduler.submit("bulk", campaign);
+        CompletableFuture<CommonResponse> resetFuture = scheduler.submit("transactional", reset);
+        complete(0);
+
+        // Assert
+        assertEquals(List.of(first, reset), sent);
+        assertEquals(1, scheduler.getMetrics("bulk").getQueueDepth());
+        assertEquals(1, scheduler.getMetrics("transactional").getInFlight());
+
+        var response = new SuccessResponse();
+        pending.get(1).complete(response);
+        assertSame(response, resetFuture.join());
+        assertEquals(List.of(first, reset, campaign), sent);
+        assertEquals(2, scheduler.getMetrics("bulk").getDispatched());
+        assertEquals(1, scheduler.getMetrics("transactional").getWaitTime().getCount());
+    }
+
+    @Test
+    void submit_WeightedFair_SharesSlotsByWeight() {
+        // Set up test data
+        var scheduler = new PriorityScheduler(mockClient, 1, PriorityScheduler.DispatchPolicy.WEIGHTED_FAIR, List.of(
+                LaneConfig.builder().name("transactional").weight(3).build(),
+                LaneConfig.builder().name("bulk").weight(1).build()));
+        CommonMail transactional = createTestMail("transactional@example.com");
+        CommonMail bulk = createTestMail("bulk@example.com");
+
+        // Perform calls
+        scheduler.submit("bulk", createTestMail("first@example.com"));
+        for (int i = 0; i < 8; i++) {
+            scheduler.submit("transactional", transactional);
+            scheduler.submit("bulk", bulk);
+        }
+        for (int i = 0; i < 8; i++) {
+            complete(i);
+        }
+
+        // Assert
+        List<CommonMail> dispatched = sent.subList(1, 9);
+        assertEquals(6, dispatched.stream().filter(mail -> mail == transactional).count());
+        assertEquals(2, dispatched.stream().filter(mail -> mail == bulk).count());
+    }
+
+    @Test
+    void lane_LaneMaxInFlightReached_LeavesSlotsToOtherLanes() {
+        // Set up test data
+        var scheduler = new PriorityScheduler(mockClient, 4, PriorityScheduler.DispatchPolicy.STRICT_PRIORITY, List.of(
+                LaneConfig.builder().name("bulk").maxInFlight(2).build(),
+                LaneConfig.builder().name("transactional").build()));
+        MailtrapClient bulk = scheduler.lane("bulk");
+        CommonMail reset = createTestMail("reset@example.com");
+
+        // Perform calls
+        for (int i = 0; i < 5; i++) {
+            bulk.sendAsync(createTestMail("campaign@example.com"));
+        }
+        scheduler.lane("transactional").sendAsync(reset);
+
+        // Assert
+        assertEquals(3, sent.size());
+        assertSame(reset, sent.get(2));
+        assertEquals(3, scheduler.getMetrics("bulk").getQueueDepth());
+        assertThrows(IllegalArgumentException.class, () -> scheduler.lane("unknown"));
+    }
+
+    @Test
+    void submit_QueuedSendsFailingSynchronously_CompletesEveryCallerWithoutRecursion() {
+        // Set up test data
+        var failing = Mockito.mock(MailtrapClient.class);
+        var first = new CompletableFuture<CommonResponse>();
+        when(failing.sendAsync(Mockito.any(CommonMail.class)))
+                .thenReturn(first)
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new IllegalStateException("Rejected")));
+        var scheduler = new PriorityScheduler(failing, 1, PriorityScheduler.DispatchPolicy.STRICT_PRIORITY, List.of(
+                LaneConfig.builder().name("bulk").build()));
+        CommonMail mail = createTestMail("campaign@example.com");
+        var futures = new ArrayList<CompletableFuture<CommonResponse>>();
+
+        // Perform calls
+        scheduler.submit("bulk", mail);
+        for (int i = 0; i < 10_000; i++) {
+            futures.add(scheduler.submit("bulk", mail));
+        }
+        first.complete(new SuccessResponse());
+
+        // Assert
+        assertTrue(futures.stream().allMatch(CompletableFuture::isCompletedExceptionally));
+        assertEquals(0, scheduler.getMetrics("bulk").getQueueDepth());
+        assertEquals(0, scheduler.getMetrics("bulk").getInFlight());
+        assertEquals(10_001, scheduler.getMetrics("bulk").getDispatched());
+    }
+
+    private void complete(int index) {
+        pending.get(index).complete(new SuccessResponse());
+    }
+}
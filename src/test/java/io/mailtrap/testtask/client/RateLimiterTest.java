@@ -0,0 +1,52 @@
+package io.mailtrap.testtask.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void reserve_WithinBurst_NoDelay() {
+        var rateLimiter = new RateLimiter(10, 3);
+        long now = System.nanoTime() + SECOND;
+
+        // Assert
+        assertEquals(0, rateLimiter.reserve(now));
+        assertEquals(0, rateLimiter.reserve(now));
+        assertEquals(0, rateLimiter.reserve(now));
+        assertEquals(SECOND / 10, rateLimiter.reserve(now));
+    }
+
+    @Test
+    void throttle_RetryAfter_DelaysAndHalvesRate() {
+        var rateLimiter = new RateLimiter(10);
+        long now = System.nanoTime() + SECOND;
+
+        // Perform call
+        rateLimiter.throttle(now, 2 * SECOND);
+
+        // Assert
+        assertEquals(2 * SECOND, rateLimiter.reserve(now));
+        assertEquals(2 * SECOND + SECOND / 5, rateLimiter.reserve(now));
+        assertEquals(5, rateLimiter.getCurrentPermitsPerSecond());
+    }
+
+    @Test
+    void onAccepted_AfterThrottle_RestoresConfiguredRate() {
+        var rateLimiter = new RateLimiter(10);
+        rateLimiter.throttle(System.nanoTime(), 0);
+
+        // Perform call
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onAccepted();
+        }
+
+        // Assert
+        assertEquals(10, rateLimiter.getCurrentPermitsPerSecond());
+    }
+}
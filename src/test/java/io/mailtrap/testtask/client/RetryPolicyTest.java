@@ -0,0 +1,54 @@
+package io.mailtrap.testtask.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    void backoffNanos_GrowsExponentiallyWithinJitterAndCap() {
+        var policy = RetryPolicy.builder()
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofMillis(500))
+                .jitter(0.5)
+                .build();
+
+        // Assert
+        for (int i = 0; i < 100; i++) {
+            long first = policy.backoffNanos(1);
+            long third = policy.backoffNanos(3);
+            long tenth = policy.backoffNanos(10);
+            assertTrue(first > Duration.ofMillis(50).toNanos() && first <= Duration.ofMillis(100).toNanos());
+            assertTrue(third > Duration.ofMillis(200).toNanos() && third <= Duration.ofMillis(400).toNanos());
+            assertTrue(tenth > Duration.ofMillis(250).toNanos() && tenth <= Duration.ofMillis(500).toNanos());
+        }
+    }
+
+    @Test
+    void shouldRetry_RespectsMaxAttemptsAndRetryableConditions() {
+        var policy = RetryPolicy.builder().maxAttempts(2).build();
+
+        // Assert
+        assertTrue(policy.shouldRetry(503, 1));
+        assertFalse(policy.shouldRetry(503, 2));
+        assertFalse(policy.shouldRetry(400, 1));
+        assertTrue(policy.shouldRetry(new IOException(), 1));
+        assertFalse(policy.shouldRetry(new IllegalStateException(), 1));
+        assertFalse(RetryPolicy.none().isEnabled());
+    }
+
+    @Test
+    void build_InvalidSettings_ThrowsIllegalArgumentException() {
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().maxAttempts(0).build());
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().initialBackoff(Duration.ofMillis(-1)).build());
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().maxBackoff(Duration.ofMillis(-1)).build());
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().jitter(-0.1).build());
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().jitter(1.1).build());
+        assertDoesNotThrow(() -> RetryPolicy.builder().maxAttempts(1).initialBackoff(Duration.ZERO).jitter(1).build());
+    }
+}
@@ -1,28 +1,51 @@
 package io.mailtrap.testtask.client;
 
 import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.exception.CircuitBreakerOpenException;
+import io.mailtrap.testtask.exception.ConcurrencyLimitExceededException;
 import io.mailtrap.testtask.exception.InvalidRequestBodyException;
 import io.mailtrap.testtask.exception.JsonException;
-import io.mailtrap.testtask.request.Address;
-import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.metrics.InMemorySendMetrics;
+import io.mailtrap.testtask.request.BatchMail;
 import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.request.MailTemplate;
+import io.mailtrap.testtask.response.BatchItemResponse;
+import io.mailtrap.testtask.response.BatchResponse;
 import io.mailtrap.testtask.response.CommonResponse;
 import io.mailtrap.testtask.response.FailureResponse;
 import io.mailtrap.testtask.response.SuccessResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.net.ConnectException;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.mailtrap.testtask.TestMails.createTestMailWithAttachment;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SendMailMailtrapClientTest {
@@ -40,7 +63,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_InvalidMail_ThrowsInvalidRequestBodyException() {
         // Set up invalid data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
         mail.getFrom().setEmail("");
 
         // Assert
@@ -56,7 +79,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_BothTextAndHtmlAreNullInvalidMail_ThrowsInvalidRequestBodyException() {
         // Set up invalid data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
         mail.setText(null);
         mail.setHtml(null);
 
@@ -67,7 +90,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMail_SuccessResponse() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
 
         // Set up mocks
         HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
@@ -90,7 +113,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMailWithIncorrectAuth_FailureResponse() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
 
         // Set up mocks
         HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
@@ -113,7 +136,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMailWithIncorrectData_FailureResponse() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
         mail.getAttachments()
                 .forEach(att -> att.setContent("1"));
 
@@ -138,7 +161,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMailServerError_FailureResponse() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
 
         // Set up mocks
         HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
@@ -161,7 +184,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMailNullableResponseBody_ThrowsBaseMailtrapException() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
 
         // Set up mocks
         HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
@@ -177,7 +200,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMailInvalidResponseBody_ThrowsJsonException() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
 
         // Set up mocks
         HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
@@ -194,7 +217,7 @@ public class SendMailMailtrapClientTest {
     @Test
     void send_ValidMailIRequestInterrupted_ThrowsBaseMailtrapException() throws IOException, InterruptedException {
         // Set up test data
-        CommonMail mail = createTestMail();
+        CommonMail mail = createTestMailWithAttachment();
 
         // Set up mocks
         HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
@@ -208,28 +231,711 @@ public class SendMailMailtrapClientTest {
         assertThrows(BaseMailtrapException.class, () -> mailClient.send(mail));
     }
 
-    // Helper method to create a sample CommonMail object for testing
-    private CommonMail createTestMail() {
-        var mail = new CommonMail();
+    @Test
+    void sendAsync_ValidMail_SuccessResponse() throws ExecutionException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes());
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        // Perform call
+        CommonResponse response = mailClient.sendAsync(mail).get();
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        assertTrue(response.isSuccess());
+        assertEquals("sample_message_id", ((SuccessResponse) response).getMessageIds().getFirst());
+    }
+
+    @Test
+    void sendAsync_InvalidMail_CompletesWithInvalidRequestBodyException() {
+        // Set up invalid data
+        CommonMail mail = createTestMailWithAttachment();
+        mail.getFrom().setEmail("");
+
+        // Assert
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> mailClient.sendAsync(mail).get());
+        assertInstanceOf(InvalidRequestBodyException.class, exception.getCause());
+    }
+
+    @Test
+    void sendAsync_ValidMailConnectionFailed_CompletesWithBaseMailtrapException() {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+
+        // Set up mocks
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")));
+
+        // Assert
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> mailClient.sendAsync(mail, Runnable::run).get());
+        assertInstanceOf(BaseMailtrapException.class, exception.getCause());
+        assertInstanceOf(ConnectException.class, exception.getCause().getCause());
+    }
+
+    @Test
+    void send_ThrottledWithRateLimiter_ResendsAndSlowsDown() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        RateLimiter rateLimiter = new RateLimiter(1000);
+        mailClient.setRateLimiter(rateLimiter);
+
+        // Set up mocks
+        HttpResponse throttledResponse = Mockito.mock(HttpResponse.class);
+        when(throttledResponse.statusCode()).thenReturn(429);
+        when(throttledResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("0")), (name, value) -> true));
+        when(throttledResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Too many requests\"]}".getBytes()));
+        HttpResponse successResponse = Mockito.mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(200);
+        when(successResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(throttledResponse, successResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        verify(mockHttpClient, times(2)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertTrue(rateLimiter.getCurrentPermitsPerSecond() < 1000);
+    }
+
+    @Test
+    void send_ThrottledWithoutRateLimiter_FailureResponse() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(429);
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Too many requests\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(FailureResponse.class, response);
+        verify(mockHttpClient, times(1)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    @Test
+    void send_ServerErrorWithRetryPolicy_RetriesWithSameIdempotencyKey() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(3).initialBackoff(Duration.ZERO).build());
+
+        // Set up mocks
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Unavailable\"]}".getBytes()));
+        HttpResponse successResponse = Mockito.mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(200);
+        when(successResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenThrow(new HttpTimeoutException("request timed out"))
+                .thenReturn(errorResponse, successResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(3)).send(requests.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        var idempotencyKeys = requests.getAllValues().stream()
+                .map(request -> request.headers().firstValue("Idempotency-Key").orElseThrow())
+                .distinct()
+                .toList();
+        assertEquals(1, idempotencyKeys.size());
+    }
+
+    @Test
+    void send_RetriedWithMetrics_RecordsEveryAttempt() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        var metrics = new InMemorySendMetrics();
+        mailClient.setMetrics(metrics);
+        mailClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(3).initialBackoff(Duration.ZERO).build());
+
+        // Set up mocks
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Unavailable\"]}".getBytes()));
+        HttpResponse successResponse = Mockito.mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(200);
+        when(successResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenThrow(new HttpTimeoutException("request timed out"))
+                .thenReturn(errorResponse, successResponse);
+
+        // Perform call
+        mailClient.send(mail);
+
+        // Assert
+        assertEquals(1, metrics.getValidation().getCount());
+        assertEquals(1, metrics.getPayloadBytes().getCount());
+        assertTrue(metrics.getPayloadBytes().getMax() > 0);
+        assertEquals(2, metrics.getTimeToFirstByte().getCount());
+        assertEquals(3, metrics.getLatency().getCount());
+        assertEquals(1, metrics.getParsing().getCount());
+        assertEquals(1, metrics.getFailures());
+        assertEquals(1, metrics.getStatusCount(503));
+        assertEquals(1, metrics.getStatusCount(200));
+        assertEquals(2, metrics.getRetries());
+        assertEquals(0, metrics.getInFlight());
+    }
+
+    @Test
+    void send_ServerErrorAttemptsExhausted_FailureResponse() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(2).initialBackoff(Duration.ZERO).build());
+
+        // Set up mocks
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(500);
+        when(errorResponse.body()).thenAnswer(invocation -> new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Server error\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(errorResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(FailureResponse.class, response);
+        verify(mockHttpClient, times(2)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    @Test
+    void send_ThrottledThenServerError_ThrottlingDoesNotUseUpRetryAttempts() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setRateLimiter(new RateLimiter(1000));
+        mailClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(2).initialBackoff(Duration.ZERO).build());
+
+        // Set up mocks
+        HttpResponse throttledResponse = Mockito.mock(HttpResponse.class);
+        when(throttledResponse.statusCode()).thenReturn(429);
+        when(throttledResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("0")), (name, value) -> true));
+        when(throttledResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Too many requests\"]}".getBytes()));
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Unavailable\"]}".getBytes()));
+        HttpResponse successResponse = Mockito.mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(200);
+        when(successResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(throttledResponse, errorResponse, successResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        verify(mockHttpClient, times(3)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    @Test
+    void sendAsync_ThrottledThenServerError_ThrottlingDoesNotUseUpRetryAttempts() throws ExecutionException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setRateLimiter(new RateLimiter(1000));
+        mailClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(2).initialBackoff(Duration.ZERO).build());
+
+        // Set up mocks
+        HttpResponse throttledResponse = Mockito.mock(HttpResponse.class);
+        when(throttledResponse.statusCode()).thenReturn(429);
+        when(throttledResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("0")), (name, value) -> true));
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        HttpResponse successResponse = Mockito.mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(200);
+        when(successResponse.body()).thenReturn("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes());
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(throttledResponse))
+                .thenReturn(CompletableFuture.completedFuture(errorResponse))
+                .thenReturn(CompletableFuture.completedFuture(successResponse));
+
+        // Perform call
+        CommonResponse response = mailClient.sendAsync(mail).get();
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        verify(mockHttpClient, times(3)).sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void sendAsync_ConnectionFailedWithRetryPolicy_Retries() throws ExecutionException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setRetryPolicy(RetryPolicy.builder().maxAttempts(2).initialBackoff(Duration.ofMillis(1)).build());
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes());
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        // Perform call
+        CommonResponse response = mailClient.sendAsync(mail).get();
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+    }
+
+    @Test
+    void send_EnvironmentAndBaseUrlChanged_RequestsSentToCurrentEndpoint() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenAnswer(invocation -> new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
 
-        Address from = new Address();
-        from.setEmail("sender@example.com");
+        // Perform calls
+        mailClient.send(mail);
+        mailClient.setSandboxEnvironment(false);
+        mailClient.send(mail);
+        mailClient.setBaseUrl("http://localhost:8080");
+        mailClient.send(mail);
 
-        Address to = new Address();
-        to.setEmail("recipient@example.com");
+        // Assert
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(3)).send(requests.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertEquals("https://sandbox.api.mailtrap.io/api/send/12345", requests.getAllValues().get(0).uri().toString());
+        assertEquals("https://send.api.mailtrap.io/api/send", requests.getAllValues().get(1).uri().toString());
+        assertEquals("http://localhost:8080/api/send", requests.getAllValues().get(2).uri().toString());
+        assertEquals("Bearer dummyToken", requests.getAllValues().get(2).headers().firstValue("Authorization").orElseThrow());
+    }
 
-        Attachment attachment = new Attachment();
-        attachment.setFilename("attachment.txt");
-        attachment.setType("text/plain");
-        attachment.setContent("c2FtcGxlIHRleHQgaW4gdGV4dCBmaWxl");
+    @Test
+    void sendBatch_ValidMails_BatchResponse() throws IOException, InterruptedException {
+        // Set up test data
+        var batch = new BatchMail();
+        batch.setRequests(List.of(createTestMailWithAttachment(), createTestMailWithAttachment()));
 
-        mail.setFrom(from);
-        mail.setTo(List.of(to));
-        mail.setSubject("Sample subject");
-        mail.setText("Sample mail text");
-        mail.setHtml("<html><body>Test HTML</body></html>");
-        mail.setAttachments(List.of(attachment));
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        InputStream inputStream = new ByteArrayInputStream(("{\"success\": true, \"responses\": ["
+                + "{\"success\": true, \"message_ids\": [\"first_message_id\"]},"
+                + "{\"success\": false, \"errors\": [\"'to' address is invalid\"]}]}").getBytes());
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(inputStream);
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.sendBatch(batch);
+
+        // Assert
+        assertInstanceOf(BatchResponse.class, response);
+        List<BatchItemResponse> items = ((BatchResponse) response).getResponses();
+        assertEquals(2, items.size());
+        assertEquals(List.of("first_message_id"), items.get(0).getMessageIds());
+        assertFalse(items.get(1).isSuccess());
+        assertEquals(List.of("'to' address is invalid"), items.get(1).getErrors());
+
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient).send(request.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertEquals("https://sandbox.api.mailtrap.io/api/batch/12345", request.getValue().uri().toString());
+    }
+
+    @Test
+    void sendBatch_InvalidMailInBatch_ThrowsInvalidRequestBodyException() {
+        // Set up invalid data
+        CommonMail invalid = createTestMailWithAttachment();
+        invalid.setSubject("");
+        var batch = new BatchMail();
+        batch.setRequests(List.of(createTestMailWithAttachment(), invalid));
+
+        // Perform call
+        var exception = assertThrows(InvalidRequestBodyException.class, () -> mailClient.sendBatch(batch));
+
+        // Assert
+        assertTrue(exception.getMessage().startsWith("Invalid batch request 1."));
+    }
+
+    @Test
+    void sendBatch_EmptyBatch_ThrowsInvalidRequestBodyException() {
+        // Set up invalid data
+        var batch = new BatchMail();
+        batch.setRequests(List.of());
+
+        // Assert
+        assertThrows(InvalidRequestBodyException.class, () -> mailClient.sendBatch(batch));
+    }
+
+    @Test
+    void send_RequestTimeoutConfigured_RequestHasTimeout() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setTransportConfig(TransportConfig.builder().requestTimeout(Duration.ofSeconds(5)).build());
+        mailClient.setHttpClient(mockHttpClient);
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        mailClient.send(mail);
+
+        // Assert
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient).send(request.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertEquals(Duration.ofSeconds(5), request.getValue().timeout().orElseThrow());
+    }
+
+    @Test
+    void warmUp_DefaultUrls_ConnectsToSandboxAndProduction() {
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        // Perform call
+        mailClient.warmUp(2);
+
+        // Assert
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(4)).sendAsync(requests.capture(), Mockito.any(HttpResponse.BodyHandler.class));
+        var uris = requests.getAllValues().stream().map(request -> request.uri().toString()).distinct().toList();
+        assertEquals(List.of("https://sandbox.api.mailtrap.io/", "https://send.api.mailtrap.io/"), uris);
+        assertEquals("HEAD", requests.getValue().method());
+    }
+
+    @Test
+    void warmUp_ConnectionFailed_ThrowsBaseMailtrapException() {
+        // Set up mocks
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")));
+
+        // Assert
+        assertThrows(BaseMailtrapException.class, () -> mailClient.warmUp());
+    }
+
+    @Test
+    void send_Template_SendsRenderedBodyWithContentLength() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail prototype = createTestMailWithAttachment();
+        prototype.setSubject("Hello {{name}}");
+        MailTemplate template = MailTemplate.of(prototype);
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(template, prototype.getTo(), Map.of("name", "World"));
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient).send(request.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        prototype.setSubject("Hello World");
+        assertEquals(prototype.toJson().getBytes().length, request.getValue().bodyPublisher().orElseThrow().contentLength());
+    }
+
+    @Test
+    void send_TemplateWithoutRecipients_ThrowsInvalidRequestBodyException() {
+        // Set up test data
+        MailTemplate template = MailTemplate.of(createTestMailWithAttachment());
+
+        // Assert
+        assertThrows(InvalidRequestBodyException.class, () -> mailClient.send(template, List.of(), Map.of()));
+    }
+
+    @Test
+    void send_BodyAboveCompressionThreshold_SendsGzipEncodedBody() throws Exception {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setCompressionThreshold(0);
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient).send(request.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertEquals("gzip", request.getValue().headers().firstValue("Content-Encoding").orElseThrow());
+        assertEquals("gzip", request.getValue().headers().firstValue("Accept-Encoding").orElseThrow());
+        try (var body = new GZIPInputStream(new ByteArrayInputStream(bodyOf(request.getValue())))) {
+            assertEquals(mail.toJson(), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void send_BodyBelowCompressionThreshold_SendsPlainBody() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        mailClient.setCompressionThreshold(1024 * 1024);
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        mailClient.send(mail);
+
+        // Assert
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient).send(request.capture(), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertTrue(request.getValue().headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(mail.toJson().getBytes().length, request.getValue().bodyPublisher().orElseThrow().contentLength());
+    }
+
+    @Test
+    void send_GzipEncodedResponse_SuccessResponse() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        var compressed = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes());
+        }
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Encoding", List.of("gzip")), (name, value) -> true));
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform call
+        CommonResponse response = mailClient.send(mail);
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, response);
+        assertEquals(List.of("sample_message_id"), ((SuccessResponse) response).getMessageIds());
+    }
+
+    @Test
+    void send_CircuitBreakerOpened_ThrowsCircuitBreakerOpenExceptionWithoutRequest() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        var metrics = new InMemorySendMetrics();
+        mailClient.setMetrics(metrics);
+        mailClient.setCircuitBreaker(new CircuitBreaker(CircuitBreakerConfig.builder().minimumCalls(2).build()));
+
+        // Set up mocks
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.body()).thenAnswer(invocation -> new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Unavailable\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(errorResponse);
+
+        // Perform call
+        mailClient.send(mail);
+        mailClient.send(mail);
+
+        // Assert
+        assertThrows(CircuitBreakerOpenException.class, () -> mailClient.send(mail));
+        verify(mockHttpClient, times(2)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+        assertEquals(1, metrics.getRejections());
+    }
+
+    @Test
+    void sendAsync_ConcurrencyLimitReached_CompletesWithConcurrencyLimitExceededException() {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+        mailClient.setConcurrencyLimiter(limiter);
+        var pending = new CompletableFuture<HttpResponse<byte[]>>();
+
+        // Set up mocks
+        when(mockHttpClient.sendAsync(Mockito.any(HttpRequest.class), Mockito.any(HttpResponse.BodyHandler.class)))
+                .thenReturn(pending);
+
+        // Perform call
+        var first = mailClient.sendAsync(mail, Runnable::run);
+        var second = mailClient.sendAsync(mail, Runnable::run);
+
+        // Assert
+        var exception = assertThrows(ExecutionException.class, second::get);
+        assertInstanceOf(ConcurrencyLimitExceededException.class, exception.getCause());
+        pending.completeExceptionally(new ConnectException("Connection refused"));
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void send_TransportThrowsRuntimeException_ReleasesPermits() throws IOException, InterruptedException {
+        // Set up test data
+        CommonMail mail = createTestMailWithAttachment();
+        var metrics = new InMemorySendMetrics();
+        var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+        mailClient.setMetrics(metrics);
+        mailClient.setConcurrencyLimiter(limiter);
+
+        // Set up mocks
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenThrow(new IllegalArgumentException("Unsupported URI"));
+
+        // Perform calls
+        assertThrows(IllegalArgumentException.class, () -> mailClient.send(mail));
+        assertThrows(IllegalArgumentException.class, () -> mailClient.send(mail));
+
+        // Assert
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(2, metrics.getFailures());
+        assertEquals(0, metrics.getInFlight());
+    }
+
+    @Test
+    void send_DuplicateWithDedupCache_ReturnsOriginalResponseWithoutRequest() throws IOException, InterruptedException {
+        // Set up test data
+        var metrics = new InMemorySendMetrics();
+        mailClient.setMetrics(metrics);
+        mailClient.setDedupCache(new DedupCache());
+
+        // Set up mocks
+        HttpResponse mockResponse = Mockito.mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(mockResponse);
+
+        // Perform calls
+        CommonResponse first = mailClient.send(createTestMailWithAttachment());
+        CommonResponse duplicate = mailClient.send(createTestMailWithAttachment());
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, first);
+        assertSame(first, duplicate);
+        assertEquals(1, metrics.getDeduplications());
+        verify(mockHttpClient, times(1)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    @Test
+    void send_FailedSendWithDedupCache_SendsDuplicateAgain() throws IOException, InterruptedException {
+        // Set up test data
+        mailClient.setDedupCache(new DedupCache());
+
+        // Set up mocks
+        HttpResponse errorResponse = Mockito.mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Unavailable\"]}".getBytes()));
+        HttpResponse successResponse = Mockito.mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(200);
+        when(successResponse.body()).thenReturn(new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes()));
+        when(mockHttpClient.send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+                .thenReturn(errorResponse, successResponse);
+
+        // Perform calls
+        CommonResponse first = mailClient.send(createTestMailWithAttachment());
+        CommonResponse duplicate = mailClient.send(createTestMailWithAttachment());
+
+        // Assert
+        assertInstanceOf(FailureResponse.class, first);
+        assertInstanceOf(SuccessResponse.class, duplicate);
+        verify(mockHttpClient, times(2)).send(Mockito.any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    @Test
+    void handleResponse_StreamingMode_SameResponsesAsBinding() {
+        // Set up test data
+        var success = "{\"success\": true, \"unknown\": {\"nested\": [1, 2]}, \"message_ids\": [\"first\", \"second\"]}";
+        var failure = "{\"success\": false, \"errors\": [\"'to' address is required\", 42]}";
+
+        // Perform call
+        mailClient.setResponseMode(ResponseMode.BIND);
+        CommonResponse boundSuccess = mailClient.handleResponse(200, new ByteArrayInputStream(success.getBytes()));
+        CommonResponse boundFailure = mailClient.handleResponse(400, new ByteArrayInputStream(failure.getBytes()));
+        mailClient.setResponseMode(ResponseMode.STREAMING);
+        CommonResponse streamedSuccess = mailClient.handleResponse(200, new ByteArrayInputStream(success.getBytes()));
+        CommonResponse streamedFailure = mailClient.handleResponse(400, new ByteArrayInputStream(failure.getBytes()));
+
+        // Assert
+        assertInstanceOf(SuccessResponse.class, streamedSuccess);
+        assertEquals(boundSuccess.toJson(), streamedSuccess.toJson());
+        assertInstanceOf(FailureResponse.class, streamedFailure);
+        assertEquals(boundFailure.toJson(), streamedFailure.toJson());
+        assertEquals(List.of("'to' address is required", "42"), ((FailureResponse) streamedFailure).getErrors());
+    }
+
+    @Test
+    void handleResponse_StreamingModeInvalidBody_ThrowsJsonException() {
+        // Set up test data
+        mailClient.setResponseMode(ResponseMode.STREAMING);
+
+        // Assert
+        assertThrows(JsonException.class, () -> mailClient.handleResponse(200, new ByteArrayInputStream("{\"success\": tr".getBytes())));
+        assertThrows(JsonException.class, () -> mailClient.handleResponse(200, new ByteArrayInputStream("[]".getBytes())));
+    }
+
+    @Test
+    void handleResponse_StatusOnlyMode_DiscardsSuccessBodyAndParsesFailure() {
+        // Set up test data
+        mailClient.setResponseMode(ResponseMode.STATUS_ONLY);
+        var success = new ByteArrayInputStream("{\"success\": true, \"message_ids\": [\"first\"]}".getBytes());
+
+        // Perform call
+        CommonResponse successResponse = mailClient.handleResponse(200, success);
+        CommonResponse failureResponse = mailClient.handleResponse(401,
+                new ByteArrayInputStream("{\"success\": false, \"errors\": [\"Unauthorized\"]}".getBytes()));
+
+        // Assert
+        assertTrue(successResponse.isSuccess());
+        assertNull(((SuccessResponse) successResponse).getMessageIds());
+        assertEquals(0, success.available());
+        assertEquals(List.of("Unauthorized"), ((FailureResponse) failureResponse).getErrors());
+        assertEquals(200, successResponse.getStatusCode());
+        assertEquals(401, failureResponse.getStatusCode());
+        assertFalse(failureResponse.toJson().contains("statusCode"));
+    }
 
-        return mail;
+    // Helper method to read the body a request would send
+    private static byte[] bodyOf(HttpRequest request) throws Exception {
+        var subscriber = HttpResponse.BodySubscribers.ofByteArray();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                subscriber.onNext(List.of(item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+        return subscriber.getBody().toCompletableFuture().get(5, TimeUnit.SECONDS);
     }
 }
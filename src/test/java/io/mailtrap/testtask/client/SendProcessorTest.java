@@ -0,0 +1,217 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SendProcessorTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void subscribe_SlowSubscriber_RequestsNoMoreThanMaxInFlightAhead() {
+        // Set up fake client
+        var client = new ManualMailtrapClient();
+        var publisher = new MailPublisher(100);
+        var subscriber = new TestSubscriber(1);
+
+        // Perform calls
+        var processor = new SendProcessor(client, 4);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        List<CompletableFuture<CommonResponse>> firstSends = new ArrayList<>(client.pending);
+        firstSends.forEach(future -> future.complete(new SuccessResponse()));
+
+        // Assert
+        assertEquals(4, firstSends.size());
+        assertEquals(1, subscriber.results.size());
+        assertEquals(5, publisher.requested.get());
+        assertEquals(5, client.pending.size());
+    }
+
+    @Test
+    void subscribe_ManyMails_PublishesEveryResultAndCompletes() {
+        // Set up fake client
+        var client = new DelayedMailtrapClient();
+        var subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        // Perform calls
+        var processor = new SendProcessor(client, 8);
+        new MailPublisher(200).subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.done.join();
+
+        // Assert
+        assertEquals(200, subscriber.results.size());
+        assertEquals(200, subscriber.results.stream().mapToLong(SendResult::getIndex).distinct().count());
+        assertTrue(subscriber.results.stream().allMatch(SendResult::isSuccess));
+        assertTrue(client.maxObservedInFlight.get() <= 8);
+    }
+
+    @Test
+    void onError_UpstreamFailed_PublishesInFlightResultsBeforeError() {
+        // Set up fake client
+        var client = new ManualMailtrapClient();
+        var subscriber = new TestSubscriber(Long.MAX_VALUE);
+        var error = new IOException("Broker connection lost");
+
+        // Perform calls
+        var processor = new SendProcessor(client, 4);
+        processor.subscribe(subscriber);
+        processor.onSubscribe(Mockito.mock(Flow.Subscription.class));
+        processor.onNext(new CommonMail());
+        processor.onNext(new CommonMail());
+        processor.onError(error);
+
+        // Assert
+        assertNull(subscriber.error);
+        client.pending.forEach(future -> future.complete(new SuccessResponse()));
+        assertEquals(2, subscriber.results.size());
+        assertSame(error, subscriber.error);
+        assertTrue(subscriber.done.isCompletedExceptionally());
+    }
+
+    /**
+     * Publishes the given number of mails synchronously as they are requested
+     */
+    private static class MailPublisher implements Flow.Publisher<CommonMail> {
+        final int size;
+        final AtomicLong requested = new AtomicLong();
+        int published;
+
+        MailPublisher(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super CommonMail> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requested.addAndGet(n);
+                    while (published < size && published < requested.get()) {
+                        published++;
+                        subscriber.onNext(new CommonMail());
+                    }
+                    if (published == size) {
+                        published++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<SendResult> {
+        final long initialRequest;
+        final List<SendResult> results = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        volatile Throwable error;
+
+        TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(SendResult item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Client which sends are completed by the test
+     */
+    private static class ManualMailtrapClient implements MailtrapClient {
+        final List<CompletableFuture<CommonResponse>> pending = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CommonResponse send(CommonMail mail) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+            var future = new CompletableFuture<CommonResponse>();
+            pending.add(future);
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+            return sendAsync(mail);
+        }
+    }
+
+    private class DelayedMailtrapClient implements MailtrapClient {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObservedInFlight = new AtomicInteger();
+
+        @Override
+        public CommonResponse send(CommonMail mail) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+            return sendAsync(mail, Runnable::run);
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+            maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            var future = new CompletableFuture<CommonResponse>();
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                var response = new SuccessResponse();
+                response.setSuccess(true);
+                future.complete(response);
+            }, ThreadLocalRandom.current().nextInt(1000), TimeUnit.MICROSECONDS);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package io.mailtrap.testtask.client;
+
+import io.mailtrap.testtask.Mapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingBodyPublisherTest {
+
+    @Test
+    void subscribe_LargeBody_EmitsBoundedChunksMatchingSerializedBody() throws Exception {
+        // Set up test data
+        var payload = "a".repeat(100_000);
+        var publisher = new StreamingBodyPublisher(out -> Mapper.get().writeValue(out, payload), 1024, Runnable::run);
+
+        // Perform call twice, the publisher must be reusable
+        for (int i = 0; i < 2; i++) {
+            var subscriber = new CollectingSubscriber(1024);
+            publisher.subscribe(subscriber);
+
+            // Assert
+            assertArrayEquals(Mapper.get().writeValueAsBytes(payload), subscriber.body.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void subscribe_NoDemand_WriterWaitsForRequest() throws Exception {
+        // Set up test data
+        var written = new AtomicInteger();
+        var publisher = new StreamingBodyPublisher(out -> {
+            for (int i = 0; i < 10; i++) {
+                out.write(new byte[100]);
+                written.addAndGet(100);
+            }
+        }, 100, command -> new Thread(command).start());
+        var subscription = new CompletableFuture<Flow.Subscription>();
+
+        // Perform call
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.complete(s);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        Thread.sleep(100);
+
+        // Assert - the first chunk is filled, but can not be emitted without demand
+        assertEquals(0, written.get());
+        subscription.get().request(3);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written.get() < 300 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(300, written.get());
+        subscription.get().cancel();
+    }
+
+    @Test
+    void subscribe_WriterFails_SignalsError() {
+        // Set up test data
+        var publisher = new StreamingBodyPublisher(out -> {
+            throw new IOException("Can not read attachment");
+        }, 1024, Runnable::run);
+        var subscriber = new CollectingSubscriber(1024);
+
+        // Perform call
+        publisher.subscribe(subscriber);
+
+        // Assert
+        var exception = assertThrows(ExecutionException.class, () -> subscriber.body.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    @Test
+    void request_NonPositiveDemandWhileWriting_SignalsErrorFromWriterThread() throws Exception {
+        // Set up test data
+        var writing = new CountDownLatch(1);
+        var requested = new CountDownLatch(1);
+        var writerThread = new CompletableFuture<Thread>();
+        var publisher = new StreamingBodyPublisher(out -> {
+            writerThread.complete(Thread.currentThread());
+            writing.countDown();
+            try {
+                requested.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            out.write(new byte[100]);
+        }, 10, command -> new Thread(command).start());
+        var subscriber = new CollectingSubscriber(10);
+        var errorThread = new CompletableFuture<Thread>();
+        subscriber.body.whenComplete((body, e) -> errorThread.complete(Thread.currentThread()));
+
+        // Perform call
+        publisher.subscribe(subscriber);
+        writing.await();
+        subscriber.subscription.request(0);
+        requested.countDown();
+
+        // Assert - no error is signalled on the requesting thread, concurrently with onNext
+        var exception = assertThrows(ExecutionException.class, () -> subscriber.body.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertSame(writerThread.get(), errorThread.get());
+    }
+
+    /**
+     * Requests one chunk at a time, the way HTTP/1.1 exchange does
+     */
+    private static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int maxChunkSize;
+        Flow.Subscription subscription;
+
+        CollectingSubscriber(int maxChunkSize) {
+            this.maxChunkSize = maxChunkSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            if (item.remaining() > maxChunkSize) {
+                body.completeExceptionally(new AssertionError("Chunk is larger than " + maxChunkSize));
+            }
+            out.write(item.array(), item.arrayOffset() + item.position(), item.remaining());
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(out.toByteArray());
+        }
+    }
+}
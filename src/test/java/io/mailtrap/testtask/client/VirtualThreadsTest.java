@@ -0,0 +1,91 @@
+package io.mailtrap.testtask.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import io.mailtrap.testtask.validation.MailValidator;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.mailtrap.testtask.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "{\"success\": true, \"message_ids\": [\"sample_message_id\"]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void newExecutor_Jdk21_RunsTasksOnVirtualThreads() throws ExecutionException, InterruptedException {
+        // Set up test data
+        var executor = VirtualThreads.newExecutor("test");
+
+        // Perform call
+        boolean virtual = executor.submit(() -> Thread.currentThread().isVirtual()).get();
+
+        // Assert
+        assertTrue(VirtualThreads.isSupported());
+        assertTrue(virtual);
+        executor.shutdown();
+    }
+
+    @Test
+    void send_ConcurrentBlockingSendsOnVirtualThreads_NeverPinCarrierThread() throws Exception {
+        // Set up test data
+        var client = new SendMailMailtrapClient("dummyToken", 12345, TransportConfig.builder()
+                .virtualThreads(true)
+                .build());
+        client.setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        client.setMailValidator(MailValidator.jakarta());
+        var pinned = new AtomicInteger();
+
+        try (var events = new RecordingStream(); var executor = VirtualThreads.newExecutor("test")) {
+            events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            events.onEvent("jdk.VirtualThreadPinned", event -> pinned.incrementAndGet());
+            events.startAsync();
+
+            // Perform calls
+            var results = new ArrayList<Future<CommonResponse>>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> client.send(createTestMail())));
+            }
+
+            // Assert
+            for (Future<CommonResponse> result : results) {
+                assertInstanceOf(SuccessResponse.class, result.get());
+            }
+            events.stop();
+        }
+        assertEquals(0, pinned.get());
+    }
+}
@@ -0,0 +1,54 @@
+package io.mailtrap.testtask.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    void bucketOf_ValuesAcrossRange_UpperBoundWithinPrecision() {
+        // Set up test data
+        long[] values = {0, 1, 7, 8, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE};
+
+        for (long value : values) {
+            // Perform call
+            long upperBound = Histogram.upperBound(Histogram.bucketOf(value));
+
+            // Assert
+            assertTrue(upperBound >= value, "upper bound of " + value);
+            assertTrue(upperBound - value <= value / 8, "precision of " + value);
+        }
+    }
+
+    @Test
+    void getPercentile_RecordedValues_ReturnsBucketUpperBound() {
+        // Set up test data
+        var histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        // Perform calls
+        long p50 = histogram.getPercentile(50);
+        long p99 = histogram.getPercentile(99);
+        long p100 = histogram.getPercentile(100);
+
+        // Assert
+        assertEquals(100, histogram.getCount());
+        assertEquals(50_500, histogram.getMean());
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 9 / 8, "p50 " + p50);
+        assertTrue(p99 >= 99_000 && p99 <= 100_000, "p99 " + p99);
+        assertEquals(100_000, p100);
+    }
+
+    @Test
+    void getPercentile_NothingRecorded_ReturnsZero() {
+        // Set up test data
+        var histogram = new Histogram();
+
+        // Assert
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+}
@@ -0,0 +1,376 @@
+package io.mailtrap.testtask.outbox;
+
+import io.mailtrap.testtask.client.MailtrapClient;
+import io.mailtrap.testtask.client.SendResult;
+import io.mailtrap.testtask.exception.BaseMailtrapException;
+import io.mailtrap.testtask.exception.CircuitBreakerOpenException;
+import io.mailtrap.testtask.exception.ConcurrencyLimitExceededException;
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import io.mailtrap.testtask.exception.JsonException;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static io.mailtrap.testtask.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void enqueue_ApiUnavailable_ReplaysMailsOnReopen() throws Exception {
+        // Set up test data
+        var unavailable = new FakeClient(mail -> {
+            throw new BaseMailtrapException("An error has occurred while sending request");
+        });
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(3);
+
+        // Perform calls
+        var seqs = new ArrayList<Long>();
+        try (var outbox = Outbox.open(directory, unavailable, config(results, delivered))) {
+            for (int i = 0; i < 3; i++) {
+                seqs.add(outbox.enqueue(createTestMail("recipient" + i + "@example.com")).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(3, outbox.getPendingCount());
+        }
+        var available = new FakeClient(OutboxTest::success);
+        try (var outbox = Outbox.open(directory, available, config(results, delivered))) {
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        // Assert
+        assertEquals(3, available.sent.size());
+        assertEquals(seqs, results.stream().map(SendResult::getIndex).sorted().toList());
+        assertTrue(results.stream().allMatch(SendResult::isSuccess));
+        assertEquals(List.of("recipient0@example.com", "recipient1@example.com", "recipient2@example.com"),
+                available.sent.stream().map(mail -> mail.getTo().getFirst().getEmail()).sorted().toList());
+    }
+
+    @Test
+    void enqueue_Delivered_NotReplayedOnReopen() throws Exception {
+        // Set up test data
+        var client = new FakeClient(OutboxTest::success);
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(10);
+
+        // Perform calls
+        try (var outbox = Outbox.open(directory, client, config(results, delivered))) {
+            for (int i = 0; i < 10; i++) {
+                outbox.enqueue(createTestMail("recipient@example.com"));
+            }
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        }
+        var reopened = new FakeClient(OutboxTest::success);
+        try (var outbox = Outbox.open(directory, reopened, config(results, new CountDownLatch(0)))) {
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        // Assert
+        assertEquals(10, client.sent.size());
+        assertTrue(reopened.sent.isEmpty());
+    }
+
+    @Test
+    void open_TornRecordAtEnd_ReplaysIntactMailsAndKeepsAppending() throws Exception {
+        // Set up test data
+        var unavailable = new FakeClient(mail -> {
+            throw new BaseMailtrapException("An error has occurred while sending request");
+        });
+        try (var outbox = Outbox.open(directory, unavailable, config(new ArrayList<>(), new CountDownLatch(0)))) {
+            outbox.enqueue(createTestMail("first@example.com")).get(5, TimeUnit.SECONDS);
+            outbox.enqueue(createTestMail("second@example.com")).get(5, TimeUnit.SECONDS);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        // half-written record: length of a large record followed by a part of it
+        Files.write(segment, new byte[]{0, 0, 1, 0, 1, 2, 3, 4, 1, 0, 0}, StandardOpenOption.APPEND);
+
+        var client = new FakeClient(OutboxTest::success);
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(3);
+
+        // Perform calls
+        try (var outbox = Outbox.open(directory, client, config(results, delivered))) {
+            outbox.enqueue(createTestMail("third@example.com")).get(5, TimeUnit.SECONDS);
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        }
+
+        // Assert
+        assertEquals(List.of("first@example.com", "second@example.com", "third@example.com"),
+                client.sent.stream().map(mail -> mail.getTo().getFirst().getEmail()).sorted().toList());
+    }
+
+    @Test
+    void enqueue_SmallSegments_DeletesAcknowledgedSegments() throws Exception {
+        // Set up test data
+        var client = new FakeClient(OutboxTest::success);
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(50);
+        var config = OutboxConfig.builder()
+                .segmentSize(1024)
+                .listener(result -> {
+                    results.add(result);
+                    delivered.countDown();
+                })
+                .build();
+
+        // Perform calls
+        try (var outbox = Outbox.open(directory, client, config)) {
+            for (int i = 0; i < 50; i++) {
+                outbox.enqueue(createTestMail("recipient@example.com"));
+            }
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        }
+
+        // Assert
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(50, results.size());
+    }
+
+    @Test
+    void enqueue_MailNeverAnswered_MovedToDeadLetterAfterMaxAttempts() throws Exception {
+        // Set up test data
+        var attempts = new AtomicInteger();
+        var client = new FakeClient(mail -> {
+            if ("poison@example.com".equals(mail.getTo().getFirst().getEmail())) {
+                attempts.incrementAndGet();
+                throw new BaseMailtrapException("An error has occurred while sending request");
+            }
+            return success(mail);
+        });
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(21);
+        var config = OutboxConfig.builder()
+                .segmentSize(1024)
+                .retryDelay(Duration.ofMillis(1))
+                .maxAttempts(3)
+                .listener(result -> {
+                    results.add(result);
+                    delivered.countDown();
+                })
+                .build();
+
+        // Perform calls
+        long poison;
+        try (var outbox = Outbox.open(directory, client, config)) {
+            poison = outbox.enqueue(createTestMail("poison@example.com")).get(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 20; i++) {
+                outbox.enqueue(createTestMail("recipient@example.com"));
+            }
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, outbox.getPendingCount());
+        }
+        var reopened = new FakeClient(OutboxTest::success);
+        try (var outbox = Outbox.open(directory, reopened, config(results, new CountDownLatch(0)))) {
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        // Assert
+        SendResult deadLetter = results.stream().filter(result -> result.getIndex() == poison).findFirst().orElseThrow();
+        assertInstanceOf(BaseMailtrapException.class, deadLetter.getError());
+        assertEquals(3, attempts.get());
+        assertEquals(20, client.sent.size());
+        assertTrue(Files.readString(directory.resolve(Outbox.DEAD_LETTER).resolve(poison + ".json")).contains("poison@example.com"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".log")).count());
+        }
+        assertTrue(reopened.sent.isEmpty());
+    }
+
+    @Test
+    void enqueue_ClientAndListenerThrow_WorkerKeepsDelivering() throws Exception {
+        // Set up test data
+        var calls = new AtomicInteger();
+        var client = new FakeClient(mail -> {
+            if (calls.incrementAndGet() % 2 == 1) {
+                throw new IllegalStateException("Client bug");
+            }
+            return success(mail);
+        });
+        var delivered = new CountDownLatch(3);
+        var config = OutboxConfig.builder()
+                .workers(1)
+                .retryDelay(Duration.ofMillis(1))
+                .listener(result -> {
+                    delivered.countDown();
+                    throw new IllegalStateException("Listener bug");
+                })
+                .build();
+
+        // Perform calls
+        try (var outbox = Outbox.open(directory, client, config)) {
+            for (int i = 0; i < 3; i++) {
+                outbox.enqueue(createTestMail("recipient" + i + "@example.com"));
+            }
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        // Assert
+        assertEquals(3, client.sent.size());
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void enqueue_TransientResponsesAndRejections_RetriedWithoutCountingRejections() throws Exception {
+        // Set up test data
+        var calls = new AtomicInteger();
+        var client = new FakeClient(mail -> {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                return failure(503);
+            } else if (call == 2) {
+                return failure(429);
+            } else if (call == 3) {
+                throw new JsonException("An error has occurred while converting JSON", new IOException("<html>"));
+            } else if (call <= 8) {
+                throw new CircuitBreakerOpenException("Circuit breaker is open");
+            } else if (call <= 10) {
+                throw new ConcurrencyLimitExceededException("Concurrency limit exceeded");
+            }
+            return success(mail);
+        });
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(1);
+        var config = OutboxConfig.builder()
+                .retryDelay(Duration.ofMillis(1))
+                .maxAttempts(4)
+                .listener(result -> {
+                    results.add(result);
+                    delivered.countDown();
+                })
+                .build();
+
+        // Perform call
+        try (var outbox = Outbox.open(directory, client, config)) {
+            outbox.enqueue(createTestMail("recipient@example.com"));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        // Assert
+        assertEquals(11, calls.get());
+        assertTrue(results.getFirst().isSuccess());
+        assertFalse(Files.exists(directory.resolve(Outbox.DEAD_LETTER)));
+    }
+
+    @Test
+    void enqueue_ServerErrorUntilMaxAttempts_MovedToDeadLetterWithResponse() throws Exception {
+        // Set up test data
+        var client = new FakeClient(mail -> failure(502));
+        var results = Collections.synchronizedList(new ArrayList<SendResult>());
+        var delivered = new CountDownLatch(1);
+        var config = OutboxConfig.builder()
+                .retryDelay(Duration.ofMillis(1))
+                .maxAttempts(2)
+                .listener(result -> {
+                    results.add(result);
+                    delivered.countDown();
+                })
+                .build();
+
+        // Perform call
+        try (var outbox = Outbox.open(directory, client, config)) {
+            outbox.enqueue(createTestMail("recipient@example.com"));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        // Assert
+        assertEquals(2, client.sent.size());
+        assertEquals(502, results.getFirst().getResponse().getStatusCode());
+        try (Stream<Path> files = Files.list(directory.resolve(Outbox.DEAD_LETTER))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void enqueue_InvalidMail_ThrowsInvalidRequestBodyException() {
+        // Set up invalid data
+        CommonMail mail = createTestMail("recipient@example.com");
+        mail.setSubject(null);
+
+        // Assert
+        try (var outbox = Outbox.open(directory, new FakeClient(OutboxTest::success))) {
+            assertThrows(InvalidRequestBodyException.class, () -> outbox.enqueue(mail));
+            assertEquals(0, outbox.getPendingCount());
+        }
+    }
+
+    private static OutboxConfig config(List<SendResult> results, CountDownLatch delivered) {
+        return OutboxConfig.builder()
+                .retryDelay(Duration.ofMillis(10))
+                .listener(result -> {
+                    results.add(result);
+                    delivered.countDown();
+                })
+                .build();
+    }
+
+    private static CommonResponse failure(int statusCode) {
+        var response = new FailureResponse();
+        response.setErrors(List.of("Service unavailable"));
+        response.setStatusCode(statusCode);
+        return response;
+    }
+
+    private static CommonResponse success(CommonMail mail) {
+        var response = new SuccessResponse();
+        response.setSuccess(true);
+        response.setMessageIds(List.of("message_id"));
+        return response;
+    }
+
+    private static class FakeClient implements MailtrapClient {
+        final List<CommonMail> sent = Collections.synchronizedList(new ArrayList<>());
+        final Function<CommonMail, CommonResponse> responder;
+
+        FakeClient(Function<CommonMail, CommonResponse> responder) {
+            this.responder = responder;
+        }
+
+        @Override
+        public CommonResponse send(CommonMail mail) {
+            CommonResponse response = responder.apply(mail);
+            sent.add(mail);
+            return response;
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<CommonResponse> sendAsync(CommonMail mail, Executor executor) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
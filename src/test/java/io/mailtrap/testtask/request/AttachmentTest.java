@@ -0,0 +1,112 @@
+package io.mailtrap.testtask.request;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttachmentTest {
+
+    private static Validator validator;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setUpValidator() {
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            validator = factory.getValidator();
+        }
+    }
+
+    @Test
+    void toJson_SourceAttachments_SameAsBase64Content() throws IOException {
+        // Set up test data
+        byte[] raw = new byte[300_001];
+        new Random(42).nextBytes(raw);
+        Path file = Files.write(tempDir.resolve("invoice.pdf"), raw);
+
+        Attachment expected = new Attachment();
+        expected.setFilename("invoice.pdf");
+        expected.setType("application/pdf");
+        expected.setContent(Base64.getEncoder().encodeToString(raw));
+
+        // Assert
+        for (Attachment attachment : new Attachment[]{
+                Attachment.fromPath(file),
+                Attachment.fromMappedFile(file),
+                Attachment.fromStream("invoice.pdf", () -> new ByteArrayInputStream(raw))}) {
+            attachment.setType("application/pdf");
+            assertEquals(expected.toJson(), attachment.toJson());
+        }
+    }
+
+    @Test
+    void toJson_StringContent_SameFieldsAndInclusionAsBeanSerializer() {
+        // Set up test data
+        Attachment attachment = new Attachment();
+        attachment.setContent("c2FtcGxlIHRleHQgaW4gdGV4dCBmaWxl");
+        attachment.setFilename("attachment.txt");
+        attachment.setType("");
+        attachment.setContentId("cid");
+
+        // Assert
+        assertEquals("{\"content\":\"c2FtcGxlIHRleHQgaW4gdGV4dCBmaWxl\",\"filename\":\"attachment.txt\",\"content_id\":\"cid\"}",
+                attachment.toJson());
+    }
+
+    @Test
+    void toString_StreamSource_DescribedWithoutReadingSource() {
+        // Set up test data
+        var opened = new AtomicInteger();
+        Attachment attachment = Attachment.fromStream("report.pdf", () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(new byte[1]);
+        });
+        attachment.setType("application/pdf");
+
+        // Perform call
+        String description = attachment.toString();
+
+        // Assert
+        assertEquals(Attachment.class.getName() + " [ filename=report.pdf, type=application/pdf, sourceLength=-1 ]", description);
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    void toString_FileSource_IncludesFileLength() throws IOException {
+        // Set up test data
+        Path file = Files.write(tempDir.resolve("attachment.bin"), new byte[100]);
+
+        // Assert
+        assertEquals(Attachment.class.getName() + " [ filename=attachment.bin, type=null, sourceLength=100 ]",
+                Attachment.fromPath(file).toString());
+    }
+
+    @Test
+    void validate_NeitherContentNorSource_ViolationOnContent() {
+        // Set up test data
+        Attachment attachment = new Attachment();
+        attachment.setFilename("attachment.txt");
+
+        // Perform call
+        var violations = validator.validate(attachment);
+
+        // Assert
+        assertEquals(1, violations.size());
+        assertEquals("content", violations.iterator().next().getPropertyPath().toString());
+        assertTrue(validator.validate(Attachment.fromStream("attachment.txt", () -> new ByteArrayInputStream(new byte[1]))).isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package io.mailtrap.testtask.request;
+
+import io.mailtrap.testtask.exception.InvalidRequestBodyException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MailTemplateTest {
+
+    @Test
+    void render_Variables_SameAsSerializedMail() {
+        // Set up test data
+        CommonMail prototype = createPrototype();
+        prototype.setSubject("Invoice {{number}} for {{ name }}");
+        prototype.setHtml("<p>Dear {{name}},</p>\n<p>your \"invoice\" is attached.</p>");
+        MailTemplate template = MailTemplate.of(prototype);
+
+        CommonMail expected = createPrototype();
+        expected.setTo(List.of(address("zoë@example.com", "Zoë \"Z\" Smith")));
+        expected.setSubject("Invoice 42\t/ 7 for Zoë \"Z\" Smith");
+        expected.setHtml("<p>Dear Zoë \"Z\" Smith,</p>\n<p>your \"invoice\" is attached.</p>");
+
+        // Perform call
+        List<byte[]> fragments = template.render(List.of(address("zoë@example.com", "Zoë \"Z\" Smith")),
+                Map.of("number", "42\t/ 7", "name", "Zoë \"Z\" Smith"));
+
+        // Assert
+        assertEquals(expected.toJson(), join(fragments));
+        assertEquals(3, template.getVariableCount());
+    }
+
+    @Test
+    void render_ConstantParts_SharedBetweenRenders() {
+        // Set up test data
+        MailTemplate template = MailTemplate.of(createPrototype());
+
+        // Perform calls
+        List<byte[]> first = template.render(List.of(address("first@example.com", null)), Map.of());
+        List<byte[]> second = template.render(List.of(address("second@example.com", null)), Map.of());
+
+        // Assert
+        assertEquals(first.size(), second.size());
+        assertSame(first.getFirst(), second.getFirst());
+        assertSame(first.getLast(), second.getLast());
+        assertNotEquals(join(first), join(second));
+    }
+
+    @Test
+    void render_MissingVariable_ThrowsInvalidRequestBodyException() {
+        // Set up test data
+        CommonMail prototype = createPrototype();
+        prototype.setSubject("Invoice {{number}}");
+        MailTemplate template = MailTemplate.of(prototype);
+
+        // Assert
+        assertThrows(InvalidRequestBodyException.class,
+                () -> template.render(List.of(address("recipient@example.com", null)), Map.of()));
+    }
+
+    @Test
+    void render_NullVariablesOrEmptySubject_ThrowsInvalidRequestBodyException() {
+        // Set up test data
+        CommonMail prototype = createPrototype();
+        prototype.setSubject("{{number}}{{name}}");
+        MailTemplate template = MailTemplate.of(prototype);
+        List<Address> to = List.of(address("recipient@example.com", null));
+
+        // Assert
+        assertThrows(InvalidRequestBodyException.class, () -> template.render(to, null));
+        assertThrows(InvalidRequestBodyException.class, () -> template.render(to, Map.of("number", "", "name", "")));
+        assertThrows(InvalidRequestBodyException.class, () -> MailTemplate.of(createPrototype()).render(to, null));
+        assertDoesNotThrow(() -> template.render(to, Map.of("number", "", "name", "Jane")));
+    }
+
+    @Test
+    void render_EmptyTextAndHtml_ThrowsInvalidRequestBodyException() {
+        // Set up test data
+        CommonMail prototype = createPrototype();
+        prototype.setText("{{text}}");
+        prototype.setHtml(null);
+        MailTemplate template = MailTemplate.of(prototype);
+        List<Address> to = List.of(address("recipient@example.com", null));
+
+        // Assert
+        assertThrows(InvalidRequestBodyException.class, () -> template.render(to, Map.of("text", "")));
+        assertDoesNotThrow(() -> template.render(to, Map.of("text", "Hello")));
+    }
+
+    @Test
+    void render_EmptyValuesLeavingRequiredFieldsFilled_Rendered() {
+        // Set up test data
+        CommonMail prototype = createPrototype();
+        prototype.setSubject("Invoice {{number}}");
+        prototype.setText("{{text}}");
+        prototype.setHtml("<p>{{html}}</p>");
+        MailTemplate template = MailTemplate.of(prototype);
+
+        // Perform call
+        String json = join(template.render(List.of(address("recipient@example.com", null)),
+                Map.of("number", "", "text", "", "html", "")));
+
+        // Assert
+        assertTrue(json.contains("\"subject\":\"Invoice \""));
+        assertTrue(json.contains("\"text\":\"\""));
+        assertTrue(json.contains("\"html\":\"<p></p>\""));
+    }
+
+    private static String join(List<byte[]> fragments) {
+        var out = new ByteArrayOutputStream();
+        fragments.forEach(out::writeBytes);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Address address(String email, String name) {
+        var address = new Address();
+        address.setEmail(email);
+        address.setName(name);
+        return address;
+    }
+
+    // Helper method to create a sample CommonMail object for testing
+    private static CommonMail createPrototype() {
+        var mail = new CommonMail();
+
+        Attachment attachment = new Attachment();
+        attachment.setFilename("attachment.txt");
+        attachment.setType("text/plain");
+        attachment.setContent("c2FtcGxlIHRleHQgaW4gdGV4dCBmaWxl");
+
+        mail.setFrom(address("sender@example.com", "Sender"));
+        mail.setSubject("Sample subject");
+        mail.setText("Sample mail text");
+        mail.setHtml("<html><body>Test HTML</body></html>");
+        mail.setAttachments(List.of(attachment));
+
+        return mail;
+    }
+}
@@ -0,0 +1,108 @@
+package io.mailtrap.testtask.validation;
+
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.Attachment;
+import io.mailtrap.testtask.request.CommonMail;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static io.mailtrap.testtask.TestMails.createTestMailWithAttachment;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FastMailValidatorTest {
+
+    private static Validator jakartaValidator;
+
+    @BeforeAll
+    static void setUpValidator() {
+        Locale.setDefault(Locale.ENGLISH);
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            jakartaValidator = factory.getValidator();
+        }
+    }
+
+    @Test
+    void validate_ValidMail_NoViolations() {
+        // Assert
+        assertNull(MailValidator.fast().validate(createTestMailWithAttachment()));
+        assertNull(MailValidator.jakarta(jakartaValidator).validate(createTestMailWithAttachment()));
+    }
+
+    @Test
+    void validate_InvalidMails_SameViolationsAsJakarta() {
+        // Set up invalid data
+        CommonMail noFrom = createTestMailWithAttachment();
+        noFrom.setFrom(null);
+
+        CommonMail emptyTo = createTestMailWithAttachment();
+        emptyTo.setTo(List.of());
+        emptyTo.setSubject("");
+
+        CommonMail invalidAddresses = createTestMailWithAttachment();
+        invalidAddresses.getFrom().setEmail("not an email");
+        Address emptyEmail = new Address();
+        emptyEmail.setEmail("");
+        Address invalidEmail = new Address();
+        invalidEmail.setEmail("recipient@@example.com");
+        invalidAddresses.setTo(Arrays.asList(createAddress("recipient@example.com"), null, emptyEmail, invalidEmail));
+
+        CommonMail invalidAttachments = createTestMailWithAttachment();
+        invalidAttachments.setAttachments(List.of(new Attachment(), invalidAttachments.getAttachments().getFirst()));
+
+        // Assert
+        for (CommonMail mail : List.of(noFrom, emptyTo, invalidAddresses, invalidAttachments)) {
+            String fast = MailValidator.fast().validate(mail);
+            String jakarta = MailValidator.jakarta(jakartaValidator).validate(mail);
+            assertNotNull(fast);
+            assertEquals(split(jakarta), split(fast));
+            assertEquals(split(jakarta), split(MailValidator.jakarta().validate(mail)));
+        }
+    }
+
+    @Test
+    void jakarta_CalledTwice_SharesValidator() {
+        // Assert
+        assertSame(MailValidator.jakarta(), MailValidator.jakarta());
+    }
+
+    @Test
+    void isValid_EmailAddresses_SameResultAsJakarta() {
+        // Set up test data
+        List<String> emails = List.of(
+                "sender@example.com", "first.last+tag@sub.example.co.uk", "a@b", "x@localhost",
+                "user@exa-mple.com", "user@-example.com", "user@example-.com", "user@example..com", "user@.example.com",
+                "user@example.com.", ".user@example.com", "user.@example.com", "us..er@example.com", "user@",
+                "@example.com", "user", "user@exa mple.com", "user name@example.com", "user@example.com@example.com",
+                "\"quoted user\"@example.com", "\"quoted\\\"escaped\"@example.com", "user@[192.168.0.1]", "user@[IPv6:::1]",
+                "user@[300.1.1.1]", "пользователь@пример.рф", "user@bücher.de", "!#$%&'*+/=?^_`{|}~-@example.com",
+                "user@exam_ple.com", "user@" + "a".repeat(63) + ".com", "user@" + "a".repeat(64) + ".com",
+                "a".repeat(64) + "@example.com", "a".repeat(65) + "@example.com",
+                "user@" + ("a".repeat(60) + ".").repeat(4) + "com", "user@" + ("a".repeat(62) + ".").repeat(4) + "com",
+                "user@exa\nmple.com", "user@example.c-m", "user@1.2.3.4");
+
+        // Assert
+        for (String email : emails) {
+            Address address = createAddress(email);
+            assertEquals(jakartaValidator.validate(address).isEmpty(), EmailAddresses.isValid(email), email);
+        }
+    }
+
+    private static Set<String> split(String violations) {
+        return new HashSet<>(Arrays.asList(violations.split("; ")));
+    }
+
+    private static Address createAddress(String email) {
+        Address address = new Address();
+        address.setEmail(email);
+        return address;
+    }
+}
@@ -0,0 +1,33 @@
+plugins {
+    id("java")
+    id("application")
+}
+
+group = "io.mailtrap.testtask"
+version = "1.0"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation(project(":"))
+    compileOnly("org.projectlombok:lombok:1.18.32")
+
+    annotationProcessor("org.projectlombok:lombok:1.18.32")
+
+    testImplementation(platform("org.junit:junit-bom:5.11.0-M1"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+}
+
+application {
+    mainClass = "io.mailtrap.testtask.testsupport.LoadGenerator"
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
@@ -0,0 +1,212 @@
+package io.mailtrap.testtask.testsupport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * In-process HTTP server mimicking the send endpoint of Mailtrap API, both the sandbox {@code /api/send/{inboxId}}
+ * and the production {@code /api/send}, for load tests of the client over a real transport.
+ * <p>
+ * Every request with a bearer token is accepted with a new message id, unless it is picked for one of the injected
+ * failures - {@code 429 Too Many Requests} with {@code Retry-After} or {@code 500 Internal Server Error}.
+ * Each response is delayed according to the {@link FakeServerConfig#getLatency() latency distribution}, and at most
+ * {@link FakeServerConfig#getMaxConcurrentRequests() maxConcurrentRequests} requests are handled at once.
+ * <p>
+ * Point the client at {@link #getBaseUrl()} with {@code setBaseUrl}. Threads of the server are named
+ * {@value #THREAD_PREFIX}, so they can be told apart from the threads of the client.
+ */
+public class FakeMailtrapServer implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "fake-mailtrap-server-";
+
+    private static final Pattern SEND_PATH = Pattern.compile("/api/send(/\\d+)?/?");
+    private static final byte[] UNAUTHORIZED = "{\"errors\":[\"Unauthorized\"]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NOT_FOUND = "{\"errors\":[\"Not Found\"]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] THROTTLED = "{\"success\":false,\"errors\":[\"Rate limit exceeded\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SERVER_ERROR = "{\"success\":false,\"errors\":[\"Internal Server Error\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // Nagle's algorithm delays small responses on keep-alive connections by up to 40 ms,
+        // read once by the JDK server when its first instance is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final FakeServerConfig config;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final String baseUrl;
+
+    private final AtomicLong messageIds = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private FakeMailtrapServer(FakeServerConfig config) throws IOException {
+        if (config.getMaxConcurrentRequests() < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+        }
+        if (!isRate(config.getErrorRate()) || !isRate(config.getThrottleRate())
+                || !isRate(config.getErrorRate() + config.getThrottleRate())) {
+            throw new IllegalArgumentException("errorRate, throttleRate and their sum must be between 0 and 1");
+        }
+        this.config = config;
+
+        var threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(config.getMaxConcurrentRequests(), runnable -> {
+            var thread = new Thread(runnable, THREAD_PREFIX + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getPort()),
+                config.getBacklog());
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+        server.start();
+        this.baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Starts a server with the default configuration on a free port.
+     *
+     * @return started server
+     * @throws UncheckedIOException if the server can not be started
+     */
+    public static FakeMailtrapServer start() {
+        return start(FakeServerConfig.defaults());
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param config configuration of the server
+     * @return started server
+     * @throws UncheckedIOException if the server can not be started
+     */
+    public static FakeMailtrapServer start(FakeServerConfig config) {
+        try {
+            return new FakeMailtrapServer(config);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start the fake Mailtrap server", e);
+        }
+    }
+
+    /**
+     * @return URL of the server to be passed to {@code SendMailMailtrapClient.setBaseUrl}
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * @return number of requests received, including the rejected ones
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of requests answered with {@code 429 Too Many Requests}
+     */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /**
+     * @return number of requests answered with {@code 500 Internal Server Error}
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Stops the server, closing the connections without waiting for requests in progress.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+
+        if (!"POST".equals(exchange.getRequestMethod())
+                || !SEND_PATH.matcher(exchange.getRequestURI().getPath()).matches()) {
+            respond(exchange, 404, NOT_FOUND);
+            return;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            respond(exchange, 401, UNAUTHORIZED);
+            return;
+        }
+
+        delay();
+        double outcome = ThreadLocalRandom.current().nextDouble();
+        if (outcome < config.getThrottleRate()) {
+            throttled.increment();
+            exchange.getResponseHeaders().add("Retry-After", Long.toString(config.getRetryAfter().toSeconds()));
+            respond(exchange, 429, THROTTLED);
+        } else if (outcome < config.getThrottleRate() + config.getErrorRate()) {
+            failed.increment();
+            respond(exchange, 500, SERVER_ERROR);
+        } else {
+            String response = "{\"success\":true,\"message_ids\":[\"fake-" + messageIds.incrementAndGet() + "\"]}";
+            respond(exchange, 200, response.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean isRate(double rate) {
+        return rate >= 0 && rate <= 1;
+    }
+
+    private void delay() {
+        long nanos = config.getLatency().nextNanos();
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FakeMailtrapServer{baseUrl=" + baseUrl + ", requests=" + getRequests() + ", throttled=" + getThrottled()
+                + ", failed=" + getFailed() + "}";
+    }
+
+}
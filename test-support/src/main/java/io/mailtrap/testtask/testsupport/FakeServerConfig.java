@@ -0,0 +1,69 @@
+package io.mailtrap.testtask.testsupport;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Configuration of a {@link FakeMailtrapServer}.
+ */
+@Getter
+@Builder
+public class FakeServerConfig {
+
+    private static final FakeServerConfig DEFAULTS = FakeServerConfig.builder().build();
+
+    /**
+     * Port to listen on, {@code 0} to pick a free one
+     */
+    @Builder.Default
+    private final int port = 0;
+
+    /**
+     * Time the server takes to respond to each request
+     */
+    @Builder.Default
+    private final LatencyDistribution latency = LatencyDistribution.none();
+
+    /**
+     * Share of requests, between 0 and 1, answered with {@code 500 Internal Server Error}
+     */
+    @Builder.Default
+    private final double errorRate = 0;
+
+    /**
+     * Share of requests, between 0 and 1, answered with {@code 429 Too Many Requests}
+     */
+    @Builder.Default
+    private final double throttleRate = 0;
+
+    /**
+     * Value of the {@code Retry-After} header of throttled responses
+     */
+    @Builder.Default
+    private final Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of requests handled at once, the number of worker threads of the server. Requests beyond it wait
+     * until a worker is free, like on a server with a limited number of workers, so the latency seen by the client grows
+     * with the load. The injected latency is slept on a worker, so at most {@code maxConcurrentRequests / latency}
+     * requests per second are served. The number of open connections is not limited
+     */
+    @Builder.Default
+    private final int maxConcurrentRequests = 256;
+
+    /**
+     * Maximum number of connections waiting to be accepted, {@code 0} for the default of the OS
+     */
+    @Builder.Default
+    private final int backlog = 0;
+
+    /**
+     * @return default configuration - every request succeeds immediately
+     */
+    public static FakeServerConfig defaults() {
+        return DEFAULTS;
+    }
+
+}
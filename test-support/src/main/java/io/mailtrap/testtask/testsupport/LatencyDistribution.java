@@ -0,0 +1,131 @@
+package io.mailtrap.testtask.testsupport;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the time the {@link FakeMailtrapServer} takes to respond.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @return latency of the next response in nanoseconds
+     */
+    long nextNanos();
+
+    /**
+     * @return responses without delay
+     */
+    static LatencyDistribution none() {
+        return () -> 0;
+    }
+
+    /**
+     * @param latency latency of every response
+     * @return constant latency
+     */
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return () -> nanos;
+    }
+
+    /**
+     * @param min minimum latency
+     * @param max maximum latency
+     * @return latency distributed uniformly between the minimum and the maximum
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("max must not be less than min");
+        }
+        return () -> minNanos == maxNanos ? minNanos : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+    }
+
+    /**
+     * Log-normal latency, which is how the latency of a real service is usually shaped - most responses are close
+     * to the median and a long tail is much slower.
+     *
+     * @param median median latency
+     * @param p99    99th percentile of the latency, not less than the median
+     * @return log-normal latency with the given median and 99th percentile
+     */
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        double medianNanos = median.toNanos();
+        if (medianNanos <= 0 || p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("median must be positive and p99 must not be less than median");
+        }
+        // 2.3263 is the z-score of the 99th percentile of the standard normal distribution
+        double sigma = Math.log(p99.toNanos() / medianNanos) / 2.3263;
+        return () -> (long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * Parses a distribution from its command-line form: {@code none}, {@code fixed:20ms}, {@code uniform:5ms,50ms}
+     * or {@code lognormal:20ms,200ms} (median and 99th percentile).
+     *
+     * @param spec the distribution
+     * @return parsed distribution
+     * @throws IllegalArgumentException if the distribution can not be parsed
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        String[] args = parts.length > 1 ? parts[1].split(",") : new String[0];
+        switch (parts[0]) {
+            case "none":
+                return none();
+            case "fixed":
+                if (args.length == 1) {
+                    return fixed(parseDuration(args[0]));
+                }
+                break;
+            case "uniform":
+                if (args.length == 2) {
+                    return uniform(parseDuration(args[0]), parseDuration(args[1]));
+                }
+                break;
+            case "lognormal":
+                if (args.length == 2) {
+                    return logNormal(parseDuration(args[0]), parseDuration(args[1]));
+                }
+                break;
+            default:
+        }
+        throw new IllegalArgumentException("Invalid latency distribution: " + spec);
+    }
+
+    /**
+     * @param value duration with a unit, e.g. {@code 500us}, {@code 20ms}, {@code 30s} or {@code 2m}
+     * @return parsed duration
+     * @throws IllegalArgumentException if the duration can not be parsed
+     */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim();
+        int unit = 0;
+        while (unit < trimmed.length() && (Character.isDigit(trimmed.charAt(unit)) || trimmed.charAt(unit) == '.')) {
+            unit++;
+        }
+        if (unit == 0) {
+            throw new IllegalArgumentException("Invalid duration: " + value);
+        }
+
+        double amount = Double.parseDouble(trimmed.substring(0, unit));
+        switch (trimmed.substring(unit)) {
+            case "ns":
+                return Duration.ofNanos((long) amount);
+            case "us":
+                return Duration.ofNanos((long) (amount * 1_000));
+            case "ms":
+                return Duration.ofNanos((long) (amount * 1_000_000));
+            case "s":
+                return Duration.ofNanos((long) (amount * 1_000_000_000));
+            case "m":
+                return Duration.ofNanos((long) (amount * 60_000_000_000L));
+            default:
+                throw new IllegalArgumentException("Invalid duration: " + value);
+        }
+    }
+
+}
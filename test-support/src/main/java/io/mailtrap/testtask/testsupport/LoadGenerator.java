@@ -0,0 +1,417 @@
+package io.mailtrap.testtask.testsupport;
+
+import io.mailtrap.testtask.client.SendMailMailtrapClient;
+import io.mailtrap.testtask.client.TransportConfig;
+import io.mailtrap.testtask.metrics.Histogram;
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.CommonMail;
+import io.mailtrap.testtask.response.CommonResponse;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link SendMailMailtrapClient} at a target concurrency or rate and reports throughput, latency percentiles
+ * and allocation rate, by default against an in-process {@link FakeMailtrapServer}.
+ * <p>
+ * Run it with {@code ./gradlew :test-support:run --args="..."}, see {@link #USAGE} for the options.
+ */
+public final class LoadGenerator {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: LoadGenerator [options]",
+            "  --concurrency N              sending threads using the blocking send (default 64)",
+            "  --rate N                     sends per second using sendAsync, instead of --concurrency",
+            "  --max-outstanding N          maximum sends in flight with --rate (default 10000)",
+            "  --duration D                 measurement time, e.g. 30s (default 30s)",
+            "  --warmup D                   load before the measurement (default 5s)",
+            "  --production                 use the production endpoint instead of the sandbox one",
+            "  --http1                      use HTTP/1.1 instead of offering an upgrade to HTTP/2",
+            "  --url URL                    send to this server instead of an in-process fake one",
+            "fake server:",
+            "  --latency SPEC               none, fixed:20ms, uniform:5ms,50ms or lognormal:MEDIAN,P99 (default none)",
+            "  --error-rate R               share of 500 responses, 0 to 1 (default 0)",
+            "  --throttle-rate R            share of 429 responses, 0 to 1 (default 0)",
+            "  --retry-after D              Retry-After of 429 responses (default 1s)",
+            "  --max-concurrent-requests N  requests handled at once (default 256)",
+            "  --serve                      only start the fake server and print its URL, for --url of another generator",
+            "  --port N                     port of the fake server (default any free port)");
+
+    private static final String THREAD_PREFIX = "load-generator-";
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) {
+        LoadOptions options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            System.out.println(USAGE);
+            return;
+        }
+        if (options.isServeOnly()) {
+            serve(options.getServer());
+            return;
+        }
+        System.out.println(run(options));
+    }
+
+    /**
+     * Runs the warm-up and the measurement.
+     *
+     * @param options options of the run
+     * @return outcome of the measurement
+     */
+    public static LoadReport run(LoadOptions options) {
+        try (FakeMailtrapServer server = options.getBaseUrl() == null ? FakeMailtrapServer.start(options.getServer()) : null) {
+            var transport = TransportConfig.builder().httpVersion(options.getHttpVersion()).build();
+            var client = new SendMailMailtrapClient("load-test-token", 1, transport);
+            client.setSandboxEnvironment(options.isSandbox());
+            client.setBaseUrl(server != null ? server.getBaseUrl() : options.getBaseUrl());
+            CommonMail mail = sampleMail();
+
+            if (!options.getWarmup().isZero()) {
+                measure(client, mail, options, options.getWarmup());
+            }
+            return measure(client, mail, options, options.getDuration());
+        }
+    }
+
+    /**
+     * Runs the fake server until the process is stopped.
+     */
+    private static void serve(FakeServerConfig config) {
+        var server = FakeMailtrapServer.start(config);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Fake Mailtrap server listening on " + server.getBaseUrl());
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parses the command-line options.
+     *
+     * @param args command-line arguments
+     * @return parsed options, {@code null} if the usage has been asked for
+     * @throws IllegalArgumentException if an option is unknown or its value is invalid
+     */
+    static LoadOptions parse(String... args) {
+        var options = LoadOptions.builder();
+        var server = FakeServerConfig.builder();
+        boolean rate = false;
+        boolean concurrency = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            String value = null;
+            int equals = name.indexOf('=');
+            if (equals > 0) {
+                value = name.substring(equals + 1);
+                name = name.substring(0, equals);
+            }
+            if ("--help".equals(name)) {
+                return null;
+            }
+            if ("--production".equals(name)) {
+                options.sandbox(false);
+                continue;
+            }
+            if ("--serve".equals(name)) {
+                options.serveOnly(true);
+                continue;
+            }
+            if ("--http1".equals(name)) {
+                options.httpVersion(HttpClient.Version.HTTP_1_1);
+                continue;
+            }
+            if (value == null) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value of " + name);
+                }
+                value = args[++i];
+            }
+
+            try {
+                switch (name) {
+                    case "--concurrency":
+                        concurrency = true;
+                        options.mode(LoadOptions.Mode.CONCURRENCY).concurrency(positive(Integer.parseInt(value), name));
+                        break;
+                    case "--rate":
+                        rate = true;
+                        options.mode(LoadOptions.Mode.RATE).rate(positive(Double.parseDouble(value), name));
+                        break;
+                    case "--max-outstanding":
+                        options.maxOutstanding(positive(Integer.parseInt(value), name));
+                        break;
+                    case "--duration":
+                        options.duration(LatencyDistribution.parseDuration(value));
+                        break;
+                    case "--warmup":
+                        options.warmup(LatencyDistribution.parseDuration(value));
+                        break;
+                    case "--url":
+                        options.baseUrl(value);
+                        break;
+                    case "--latency":
+                        server.latency(LatencyDistribution.parse(value));
+                        break;
+                    case "--error-rate":
+                        server.errorRate(Double.parseDouble(value));
+                        break;
+                    case "--throttle-rate":
+                        server.throttleRate(Double.parseDouble(value));
+                        break;
+                    case "--retry-after":
+                        server.retryAfter(LatencyDistribution.parseDuration(value));
+                        break;
+                    case "--max-concurrent-requests":
+                        server.maxConcurrentRequests(positive(Integer.parseInt(value), name));
+                        break;
+                    case "--port":
+                        server.port(Integer.parseInt(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+            }
+        }
+
+        if (rate && concurrency) {
+            throw new IllegalArgumentException("--rate and --concurrency are mutually exclusive");
+        }
+        return options.server(server.build()).build();
+    }
+
+    private static <T extends Number> T positive(T value, String name) {
+        if (value.doubleValue() <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    private static LoadReport measure(SendMailMailtrapClient client, CommonMail mail, LoadOptions options,
+                                      Duration duration) {
+        var recorder = new Recorder();
+        Map<Long, Long> allocatedAtStart = allocatedBytes();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        if (options.getMode() == LoadOptions.Mode.RATE) {
+            sendAtRate(client, mail, options, recorder, start, end);
+        } else {
+            sendConcurrently(client, mail, options, recorder, end);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedSince(allocatedAtStart);
+        if (allocated >= 0) {
+            allocated += recorder.senderAllocatedBytes.sum();
+        }
+        return new LoadReport(elapsed, recorder.successes.sum(), recorder.failures.sum(), recorder.errors.sum(),
+                recorder.latency, allocated);
+    }
+
+    /**
+     * Sends from {@code concurrency} threads, each one waiting for a response before sending the next mail
+     */
+    private static void sendConcurrently(SendMailMailtrapClient client, CommonMail mail, LoadOptions options,
+                                         Recorder recorder, long end) {
+        var threads = new AtomicInteger();
+        ExecutorService senders = Executors.newFixedThreadPool(options.getConcurrency(), runnable -> {
+            var thread = new Thread(runnable, THREAD_PREFIX + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < options.getConcurrency(); i++) {
+            senders.execute(() -> {
+                long allocatedBefore = currentThreadAllocatedBytes();
+                while (System.nanoTime() - end < 0) {
+                    long sendStart = System.nanoTime();
+                    try {
+                        CommonResponse response = client.send(mail);
+                        recorder.record(response, null, System.nanoTime() - sendStart);
+                    } catch (RuntimeException e) {
+                        recorder.record(null, e, System.nanoTime() - sendStart);
+                    }
+                }
+                // the senders have terminated by the end of the measurement, so each one reports its own allocations
+                recorder.senderAllocatedBytes.add(currentThreadAllocatedBytes() - allocatedBefore);
+            });
+        }
+        senders.shutdown();
+        awaitUninterruptibly(senders);
+    }
+
+    /**
+     * Starts a send every {@code 1 / rate} seconds without waiting for the previous ones to complete. The latency of
+     * each send is measured from the time it was scheduled for, so a send delayed by {@code maxOutstanding} or by
+     * a stalled generator counts its wait as well
+     */
+    private static void sendAtRate(SendMailMailtrapClient client, CommonMail mail, LoadOptions options,
+                                   Recorder recorder, long start, long end) {
+        double intervalNanos = 1e9 / options.getRate();
+        var outstanding = new Semaphore(options.getMaxOutstanding());
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + (long) (i * intervalNanos);
+            if (scheduled - end >= 0) {
+                break;
+            }
+            long delay;
+            while ((delay = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            outstanding.acquireUninterruptibly();
+            client.sendAsync(mail).whenComplete((response, error) -> {
+                recorder.record(response, error, System.nanoTime() - scheduled);
+                outstanding.release();
+            });
+        }
+        outstanding.acquireUninterruptibly(options.getMaxOutstanding());
+    }
+
+    private static void awaitUninterruptibly(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return bean reporting the bytes allocated by each thread, {@code null} if the JVM does not report them
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return allocationBean;
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread, {@code 0} if the JVM does not report it
+     */
+    @SuppressWarnings("deprecation")
+    private static long currentThreadAllocatedBytes() {
+        var allocationBean = allocationBean();
+        return allocationBean == null ? 0 : Math.max(0, allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()));
+    }
+
+    /**
+     * @return bytes allocated so far by each live thread, by thread id, {@code null} if the JVM does not report it.
+     * Threads of the fake server are left out, and so are the senders, which report their own allocations
+     */
+    @SuppressWarnings("deprecation")
+    private static Map<Long, Long> allocatedBytes() {
+        var allocationBean = allocationBean();
+        if (allocationBean == null) {
+            return null;
+        }
+
+        Map<Long, Long> allocated = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(FakeMailtrapServer.THREAD_PREFIX) || thread.getName().startsWith(THREAD_PREFIX)) {
+                continue;
+            }
+            long bytes = allocationBean.getThreadAllocatedBytes(thread.getId());
+            if (bytes >= 0) {
+                allocated.put(thread.getId(), bytes);
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * @return bytes allocated since the snapshot by the threads alive at both points, {@code -1} if not reported
+     */
+    private static long allocatedSince(Map<Long, Long> start) {
+        Map<Long, Long> end = allocatedBytes();
+        if (start == null || end == null) {
+            return -1;
+        }
+        long allocated = 0;
+        for (Map.Entry<Long, Long> thread : end.entrySet()) {
+            allocated += thread.getValue() - start.getOrDefault(thread.getKey(), 0L);
+        }
+        return allocated;
+    }
+
+    private static CommonMail sampleMail() {
+        var from = new Address();
+        from.setEmail("sender@example.com");
+        from.setName("Load Generator");
+        var to = new Address();
+        to.setEmail("recipient@example.com");
+
+        var mail = new CommonMail();
+        mail.setFrom(from);
+        mail.setTo(List.of(to));
+        mail.setSubject("Load test");
+        mail.setText("Sample mail text of the load test");
+        return mail;
+    }
+
+    /**
+     * Outcomes of the sends of one measurement, recorded from many threads
+     */
+    private static final class Recorder {
+
+        private final Histogram latency = new Histogram();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder senderAllocatedBytes = new LongAdder();
+
+        private void record(CommonResponse response, Throwable error, long nanos) {
+            latency.record(nanos);
+            if (error != null) {
+                errors.increment();
+            } else if (response != null && response.isSuccess()) {
+                successes.increment();
+            } else {
+                failures.increment();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package io.mailtrap.testtask.testsupport;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Options of a {@link LoadGenerator} run.
+ */
+@Getter
+@Builder
+public class LoadOptions {
+
+    /**
+     * How the load is generated
+     */
+    public enum Mode {
+        /**
+         * Closed loop - each of {@code concurrency} threads sends with the blocking {@code send}, one mail after another
+         */
+        CONCURRENCY,
+        /**
+         * Open loop - mails are sent with {@code sendAsync} at a fixed {@code rate}, regardless of how fast they complete
+         */
+        RATE
+    }
+
+    @Builder.Default
+    private final Mode mode = Mode.CONCURRENCY;
+
+    /**
+     * Number of sending threads in {@link Mode#CONCURRENCY}
+     */
+    @Builder.Default
+    private final int concurrency = 64;
+
+    /**
+     * Sends per second in {@link Mode#RATE}
+     */
+    @Builder.Default
+    private final double rate = 1000;
+
+    /**
+     * Maximum number of sends in flight in {@link Mode#RATE}. When it is reached, the next send waits,
+     * and the wait counts into its latency
+     */
+    @Builder.Default
+    private final int maxOutstanding = 10_000;
+
+    /**
+     * Time of the measurement
+     */
+    @Builder.Default
+    private final Duration duration = Duration.ofSeconds(30);
+
+    /**
+     * Time of the load before the measurement, letting the JIT compiler and the connection pool warm up
+     */
+    @Builder.Default
+    private final Duration warmup = Duration.ofSeconds(5);
+
+    /**
+     * URL of the server to send to, an in-process {@link FakeMailtrapServer} is started when {@code null}
+     */
+    @Builder.Default
+    private final String baseUrl = null;
+
+    /**
+     * Whether only the fake server is started, to be loaded from a generator in another process or on another machine,
+     * so that it does not compete with the client for CPU
+     */
+    @Builder.Default
+    private final boolean serveOnly = false;
+
+    /**
+     * Configuration of the in-process server
+     */
+    @Builder.Default
+    private final FakeServerConfig server = FakeServerConfig.defaults();
+
+    /**
+     * HTTP version of the client. With {@link HttpClient.Version#HTTP_2} over plain HTTP the JDK client asks to upgrade
+     * every new connection to HTTP/2, which the fake server ignores, and then keeps using HTTP/1.1
+     */
+    @Builder.Default
+    private final HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    /**
+     * Whether the sandbox endpoint is used rather than the production one
+     */
+    @Builder.Default
+    private final boolean sandbox = true;
+
+}
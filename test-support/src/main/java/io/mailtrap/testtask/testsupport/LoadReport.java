@@ -0,0 +1,90 @@
+package io.mailtrap.testtask.testsupport;
+
+import io.mailtrap.testtask.metrics.Histogram;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * Outcome of the measured part of a {@link LoadGenerator} run.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class LoadReport {
+
+    /**
+     * Length of the measurement in nanoseconds, until every started send has completed
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Sends accepted by the server
+     */
+    private final long successes;
+
+    /**
+     * Sends answered with a failure response, e.g. throttled or failed on the server
+     */
+    private final long failures;
+
+    /**
+     * Sends failed with an exception, e.g. a timeout or a refused connection
+     */
+    private final long errors;
+
+    /**
+     * Latency of every send in nanoseconds. In {@link LoadOptions.Mode#RATE} it is measured from the time the send
+     * was scheduled for, so a stalled client is not hidden by sending less
+     */
+    private final Histogram latency;
+
+    /**
+     * Bytes allocated by the threads of the client during the measurement, {@code -1} if the JVM does not report it.
+     * Threads which have terminated before the end of the measurement are not counted
+     */
+    private final long allocatedBytes;
+
+    /**
+     * @return number of completed sends
+     */
+    public long getSends() {
+        return successes + failures + errors;
+    }
+
+    /**
+     * @return completed sends per second
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getSends() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return bytes allocated per second by the threads of the client, {@code -1} if the JVM does not report it
+     */
+    public double getAllocationRate() {
+        return allocatedBytes < 0 || elapsedNanos == 0 ? -1 : allocatedBytes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return bytes allocated per send, {@code -1} if the JVM does not report it
+     */
+    public double getAllocatedBytesPerSend() {
+        return allocatedBytes < 0 || getSends() == 0 ? -1 : (double) allocatedBytes / getSends();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "sends:      %d (%d succeeded, %d failed, %d errors) in %.1f s%n"
+                        + "throughput: %.0f sends/s%n"
+                        + "latency:    p50 %.3f ms, p99 %.3f ms, p999 %.3f ms, max %.3f ms%n"
+                        + "allocation: %.1f MB/s, %.0f bytes/send",
+                getSends(), successes, failures, errors, elapsedNanos / 1e9,
+                getThroughput(),
+                latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6, latency.getPercentile(99.9) / 1e6,
+                latency.getMax() / 1e6,
+                getAllocationRate() / 1e6, getAllocatedBytesPerSend());
+    }
+
+}
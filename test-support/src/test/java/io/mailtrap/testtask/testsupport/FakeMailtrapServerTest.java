@@ -0,0 +1,81 @@
+package io.mailtrap.testtask.testsupport;
+
+import io.mailtrap.testtask.client.SendMailMailtrapClient;
+import io.mailtrap.testtask.response.CommonResponse;
+import io.mailtrap.testtask.response.FailureResponse;
+import io.mailtrap.testtask.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static io.mailtrap.testtask.testsupport.TestMails.createTestMail;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FakeMailtrapServerTest {
+
+    @Test
+    void send_SandboxAndProductionEndpoints_SuccessResponses() {
+        try (var server = FakeMailtrapServer.start()) {
+            // Set up test data
+            var client = createClient(server);
+
+            // Perform calls
+            CommonResponse sandbox = client.send(createTestMail());
+            client.setSandboxEnvironment(false);
+            CommonResponse production = client.send(createTestMail());
+
+            // Assert
+            assertInstanceOf(SuccessResponse.class, sandbox);
+            assertEquals(List.of("fake-1"), ((SuccessResponse) sandbox).getMessageIds());
+            assertEquals(List.of("fake-2"), ((SuccessResponse) production).getMessageIds());
+            assertEquals(2, server.getRequests());
+        }
+    }
+
+    @Test
+    void send_ThrottleRateOne_FailureResponse() {
+        try (var server = FakeMailtrapServer.start(FakeServerConfig.builder().throttleRate(1).build())) {
+            // Perform call
+            CommonResponse response = createClient(server).send(createTestMail());
+
+            // Assert
+            assertInstanceOf(FailureResponse.class, response);
+            assertEquals(List.of("Rate limit exceeded"), ((FailureResponse) response).getErrors());
+            assertEquals(1, server.getThrottled());
+        }
+    }
+
+    @Test
+    void send_ErrorRateOneWithLatency_DelayedFailureResponse() {
+        var config = FakeServerConfig.builder()
+                .errorRate(1)
+                .latency(LatencyDistribution.fixed(Duration.ofMillis(50)))
+                .build();
+        try (var server = FakeMailtrapServer.start(config)) {
+            // Perform call
+            long start = System.nanoTime();
+            CommonResponse response = createClient(server).send(createTestMail());
+
+            // Assert
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+            assertInstanceOf(FailureResponse.class, response);
+            assertEquals(1, server.getFailed());
+        }
+    }
+
+    @Test
+    void start_RatesAboveOne_ThrowsIllegalArgumentException() {
+        // Set up test data
+        var config = FakeServerConfig.builder().errorRate(0.6).throttleRate(0.6).build();
+
+        // Perform call and assert
+        assertThrows(IllegalArgumentException.class, () -> FakeMailtrapServer.start(config));
+    }
+
+    private static SendMailMailtrapClient createClient(FakeMailtrapServer server) {
+        var client = new SendMailMailtrapClient("dummyToken", 12345);
+        client.setBaseUrl(server.getBaseUrl());
+        return client;
+    }
+}
@@ -0,0 +1,70 @@
+package io.mailtrap.testtask.testsupport;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadGeneratorTest {
+
+    @Test
+    void parse_RateAndServerOptions_BuildsOptions() {
+        // Perform call
+        LoadOptions options = LoadGenerator.parse("--rate", "500", "--duration=10s", "--warmup", "500ms",
+                "--latency", "lognormal:2ms,20ms", "--throttle-rate", "0.01", "--production");
+
+        // Assert
+        assertEquals(LoadOptions.Mode.RATE, options.getMode());
+        assertEquals(500, options.getRate());
+        assertEquals(Duration.ofSeconds(10), options.getDuration());
+        assertEquals(Duration.ofMillis(500), options.getWarmup());
+        assertEquals(0.01, options.getServer().getThrottleRate());
+        assertFalse(options.isSandbox());
+        assertNull(LoadGenerator.parse("--help"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parse("--rate", "10", "--concurrency", "4"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parse("--latency", "gaussian:1ms"));
+    }
+
+    @Test
+    void run_ConcurrencyMode_ReportsEverySend() {
+        // Set up test data
+        var options = LoadOptions.builder()
+                .concurrency(4)
+                .warmup(Duration.ZERO)
+                .duration(Duration.ofMillis(300))
+                .server(FakeServerConfig.builder().throttleRate(0.5).build())
+                .build();
+
+        // Perform call
+        LoadReport report = LoadGenerator.run(options);
+
+        // Assert
+        assertTrue(report.getSuccesses() > 0);
+        assertTrue(report.getFailures() > 0);
+        assertEquals(0, report.getErrors());
+        assertEquals(report.getSends(), report.getLatency().getCount());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getAllocatedBytes() > 0);
+    }
+
+    @Test
+    void run_RateMode_SendsAtRate() {
+        // Set up test data
+        var options = LoadOptions.builder()
+                .mode(LoadOptions.Mode.RATE)
+                .rate(100)
+                .warmup(Duration.ZERO)
+                .duration(Duration.ofMillis(500))
+                .server(FakeServerConfig.builder().latency(LatencyDistribution.uniform(Duration.ZERO, Duration.ofMillis(5))).build())
+                .build();
+
+        // Perform call
+        LoadReport report = LoadGenerator.run(options);
+
+        // Assert
+        assertEquals(50, report.getSends());
+        assertEquals(50, report.getSuccesses());
+        assertTrue(report.getLatency().getPercentile(50) >= 0);
+    }
+}
@@ -0,0 +1,36 @@
+package io.mailtrap.testtask.testsupport;
+
+import io.mailtrap.testtask.request.Address;
+import io.mailtrap.testtask.request.CommonMail;
+
+import java.util.List;
+
+/**
+ * Sample mails shared by the tests of the module
+ */
+public final class TestMails {
+
+    private TestMails() {
+    }
+
+    /**
+     * @return valid mail with a subject and a text to {@code recipient@example.com}
+     */
+    public static CommonMail createTestMail() {
+        var mail = new CommonMail();
+
+        Address from = new Address();
+        from.setEmail("sender@example.com");
+
+        Address to = new Address();
+        to.setEmail("recipient@example.com");
+
+        mail.setFrom(from);
+        mail.setTo(List.of(to));
+        mail.setSubject("Sample subject");
+        mail.setText("Sample mail text");
+
+        return mail;
+    }
+
+}